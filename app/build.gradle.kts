@@ -48,6 +48,10 @@ dependencies {
     // Add Glide for optimized image loading
     implementation(libs.glide)
     annotationProcessor(libs.compiler)
+    // RecyclerViewPreloader; RecyclerView itself already comes with material
+    implementation(libs.glide.recyclerview) {
+        isTransitive = false
+    }
 
     // For palette
     implementation(libs.palette.ktx)
@@ -1,9 +1,14 @@
 package com.example.cookingbook;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
 
 import androidx.annotation.NonNull;
 import androidx.palette.graphics.Palette;
@@ -12,28 +17,93 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.target.CustomTarget;
 import com.bumptech.glide.request.transition.Transition;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class ColorUtils {
 
+    // Palette only needs a rough picture of the image, so it samples a thumbnail with a small
+    // color count instead of the full photo
+    private static final int PALETTE_IMAGE_SIZE = 128;
+    private static final int PALETTE_MAX_COLORS = 12;
+    private static final int PALETTE_BITMAP_AREA = PALETTE_IMAGE_SIZE * PALETTE_IMAGE_SIZE;
+
+    private static final String CACHE_PREFS_NAME = "palette_colors";
+    private static final int MEMORY_CACHE_SIZE = 64;
+    private static final int DISK_CACHE_SIZE = 256;
+
+    // Colors by image URI, {start, end}. Backed by a small preferences table, so a recipe opened
+    // in an earlier session gets its gradient without decoding anything.
+    private static final LruCache<String, int[]> colorCache = new LruCache<>(MEMORY_CACHE_SIZE);
+
+    // Reads and writes the table and runs Palette, never on the main thread
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "palette"));
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // The stored table, "start,end,time saved" by image URI. Read once, only touched on the worker.
+    private static HashMap<String, String> stored;
+
     public interface OnColorExtractedListener {
-        void onColorExtracted(int startColor, int endColor);
+        // Called on the main thread. fromCache is true when the colors were stored, no image was decoded.
+        void onColorExtracted(int startColor, int endColor, boolean fromCache);
+    }
+
+    // Reads the stored table ahead of the first form, so opening one doesn't wait for the disk
+    public static void preload(Context context) {
+        Context appContext = context.getApplicationContext();
+        worker.execute(() -> loadStored(appContext));
     }
 
     public static void extractColorsFromImage(Context context, Uri imageUri, OnColorExtractedListener listener) {
+        String key = imageUri.toString();
+        int[] cached = colorCache.get(key);
+        if (cached != null) {
+            listener.onColorExtracted(cached[0], cached[1], true);
+            return;
+        }
+
+        Context appContext = context.getApplicationContext();
+        worker.execute(() -> {
+            int[] colors = parse(loadStored(appContext).get(key));
+            mainHandler.post(() -> {
+                if (colors != null) {
+                    colorCache.put(key, colors);
+                    listener.onColorExtracted(colors[0], colors[1], true);
+                } else if (!(context instanceof Activity) || !((Activity) context).isDestroyed()) {
+                    decode(context, imageUri, key, listener);
+                }
+            });
+        });
+    }
+
+    private static void decode(Context context, Uri imageUri, String key, OnColorExtractedListener listener) {
+        Context appContext = context.getApplicationContext();
         Glide.with(context)
                 .asBitmap()
                 .load(imageUri)
+                .override(PALETTE_IMAGE_SIZE) // decoded with inSampleSize, never at full size
                 .into(new CustomTarget<Bitmap>() {
                     @Override
                     public void onResourceReady(@NonNull Bitmap resource, Transition<? super Bitmap> transition) {
-                        Palette.Builder builder = Palette.from(resource);
-                        builder.generate(palette -> {
-                            if (palette != null) {
-                                int dominantColor = palette.getDominantColor(0xFF6B6B);
-                                int vibrantColor = palette.getVibrantColor(0xFFD93D);
-
+                        // Glide may reuse its bitmap once this returns, the worker gets a copy
+                        Bitmap copy = resource.copy(Bitmap.Config.ARGB_8888, false);
+                        if (copy == null) return;
+                        worker.execute(() -> {
+                            Palette palette = Palette.from(copy)
+                                    .maximumColorCount(PALETTE_MAX_COLORS)
+                                    .resizeBitmapArea(PALETTE_BITMAP_AREA)
+                                    .generate();
+                            copy.recycle();
+                            int dominantColor = palette.getDominantColor(0xFF6B6B);
+                            int vibrantColor = palette.getVibrantColor(0xFFD93D);
+                            store(appContext, key, dominantColor, vibrantColor);
+                            mainHandler.post(() -> {
+                                colorCache.put(key, new int[]{dominantColor, vibrantColor});
                                 // Create a lighter version for complementary gradient
-                                listener.onColorExtracted(dominantColor, vibrantColor);
-                            }
+                                listener.onColorExtracted(dominantColor, vibrantColor, false);
+                            });
                         });
                     }
 
@@ -43,6 +113,66 @@ public class ColorUtils {
                 });
     }
 
+    // Runs on the worker
+    private static HashMap<String, String> loadStored(Context context) {
+        if (stored == null) {
+            stored = new HashMap<>();
+            Map<String, ?> all = context.getSharedPreferences(CACHE_PREFS_NAME, Context.MODE_PRIVATE).getAll();
+            for (Map.Entry<String, ?> entry : all.entrySet()) {
+                stored.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        }
+        return stored;
+    }
+
+    private static int[] parse(String value) {
+        if (value == null) return null;
+        try {
+            // start,end,time saved
+            String[] parts = value.split(",");
+            return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+        } catch (Exception e) {
+            e.printStackTrace(); // Logs to Logcat
+            return null;
+        }
+    }
+
+    // Runs on the worker
+    private static void store(Context context, String key, int startColor, int endColor) {
+        HashMap<String, String> table = loadStored(context);
+        String value = startColor + "," + endColor + "," + System.currentTimeMillis();
+        SharedPreferences.Editor editor = context.getSharedPreferences(CACHE_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putString(key, value);
+        if (!table.containsKey(key) && table.size() >= DISK_CACHE_SIZE) {
+            // Drops the entry saved longest ago to make room
+            String oldestKey = null;
+            long oldestTime = Long.MAX_VALUE;
+            for (Map.Entry<String, String> entry : table.entrySet()) {
+                long time = savedAt(entry.getValue());
+                if (time < oldestTime) {
+                    oldestTime = time;
+                    oldestKey = entry.getKey();
+                }
+            }
+            if (oldestKey != null) {
+                table.remove(oldestKey);
+                editor.remove(oldestKey);
+            }
+        }
+        table.put(key, value);
+        editor.apply();
+    }
+
+    private static long savedAt(String stored) {
+        try {
+            String[] parts = stored.split(",");
+            return Long.parseLong(parts[2]);
+        } catch (Exception e) {
+            return 0; // unreadable entries go first
+        }
+    }
+
     public static int adjustBrightness(int color, float factor) {
         int a = color >> 24 & 0xff;
         int r = color >> 16 & 0xff;
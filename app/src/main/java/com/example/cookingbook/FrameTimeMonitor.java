@@ -0,0 +1,89 @@
+package com.example.cookingbook;
+
+import android.app.Activity;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Records how long each frame of an activity took, from FrameMetrics, and logs percentiles and
+// missed frames when stopped. Used to compare scrolling before and after changes to the list.
+public class FrameTimeMonitor {
+
+    private static final String TAG = "FrameTimeMonitor";
+    // Frames kept, older ones are overwritten
+    private static final int CAPACITY = 4096;
+
+    private final String name;
+    private final long[] durationsNs = new long[CAPACITY];
+    private final long frameBudgetNs;
+    private int count;
+    private final Window window;
+    private HandlerThread thread;
+    private final Window.OnFrameMetricsAvailableListener listener = (source, frameMetrics, dropCount) -> {
+        long duration = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        synchronized (this) {
+            durationsNs[count % CAPACITY] = duration;
+            count++;
+        }
+    };
+
+    public FrameTimeMonitor(Activity activity, String name) {
+        this.name = name;
+        Display display = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? activity.getDisplay()
+                : activity.getSystemService(DisplayManager.class).getDisplay(Display.DEFAULT_DISPLAY);
+        float refreshRate = display != null ? display.getRefreshRate() : 0f;
+        this.frameBudgetNs = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+        this.window = activity.getWindow();
+    }
+
+    public void start() {
+        if (thread != null) return;
+        synchronized (this) {
+            count = 0;
+        }
+        thread = new HandlerThread("frame-metrics");
+        thread.start();
+        window.addOnFrameMetricsAvailableListener(listener, new Handler(thread.getLooper()));
+    }
+
+    // Logs what was recorded since start
+    public void stop() {
+        if (thread == null) return;
+        window.removeOnFrameMetricsAvailableListener(listener);
+        thread.quitSafely();
+        thread = null;
+
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(durationsNs, Math.min(count, CAPACITY));
+        }
+        if (sorted.length == 0) return;
+        Arrays.sort(sorted);
+        int janky = 0;
+        for (long duration : sorted) {
+            if (duration > frameBudgetNs) janky++;
+        }
+        Log.i(TAG, name + ": " + sorted.length + " frames, p50=" + millis(percentile(sorted, 50))
+                + " ms, p90=" + millis(percentile(sorted, 90)) + " ms, p99=" + millis(percentile(sorted, 99))
+                + " ms, max=" + millis(sorted[sorted.length - 1]) + " ms, " + janky + " over the "
+                + millis(frameBudgetNs) + " ms budget");
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+// Trigram index over a vocabulary of normalized words, for finding the words a mistyped query
+// word was meant to be ("chiken" -> "chicken"). Candidates come from the posting lists of the
+// query's trigrams only, and are confirmed with a bounded edit distance against the start of
+// the word, so a mistyped prefix ("chickn") still finds the full word. Not thread safe,
+// RecipeSearchIndex guards it.
+class FuzzyWordIndex {
+
+    // Shorter words have too few trigrams to tell typos from different words
+    public static final int MIN_QUERY_LENGTH = 4;
+
+    private final HashMap<String, HashSet<String>> wordsByGram = new HashMap<>();
+    // How many recipes use each word, it leaves the index when the last one is removed
+    private final HashMap<String, Integer> useCounts = new HashMap<>();
+
+    public void add(String word) {
+        Integer count = useCounts.get(word);
+        useCounts.put(word, count == null ? 1 : count + 1);
+        if (count != null) return;
+        for (String gram : grams(word)) {
+            HashSet<String> words = wordsByGram.get(gram);
+            if (words == null) {
+                words = new HashSet<>();
+                wordsByGram.put(gram, words);
+            }
+            words.add(word);
+        }
+    }
+
+    public void remove(String word) {
+        Integer count = useCounts.get(word);
+        if (count == null) return;
+        if (count > 1) {
+            useCounts.put(word, count - 1);
+            return;
+        }
+        useCounts.remove(word);
+        for (String gram : grams(word)) {
+            HashSet<String> words = wordsByGram.get(gram);
+            if (words != null && words.remove(word) && words.isEmpty()) {
+                wordsByGram.remove(gram);
+            }
+        }
+    }
+
+    public int size() {
+        return useCounts.size();
+    }
+
+    // Typos tolerated for a query word of the given length
+    public static int maxDistance(int length) {
+        if (length < MIN_QUERY_LENGTH) return 0;
+        return length < 8 ? 1 : 2;
+    }
+
+    // Vocabulary words whose start is within maxDistance(query) edits of the query
+    public List<String> find(String query) {
+        ArrayList<String> found = new ArrayList<>();
+        int maxDistance = maxDistance(query.length());
+        if (maxDistance == 0) return found;
+
+        // Each edit touches at most three trigrams, so a match shares all but 3 * maxDistance
+        // of the query's
+        HashSet<String> queryGrams = new HashSet<>(Arrays.asList(grams(query)));
+        int required = Math.max(1, queryGrams.size() - 3 * maxDistance);
+        HashMap<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            HashSet<String> words = wordsByGram.get(gram);
+            if (words == null) continue;
+            for (String word : words) {
+                Integer count = shared.get(word);
+                shared.put(word, count == null ? 1 : count + 1);
+            }
+        }
+
+        for (HashMap.Entry<String, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() >= required
+                    && prefixDistance(query, candidate.getKey(), maxDistance) <= maxDistance) {
+                found.add(candidate.getKey());
+            }
+        }
+        return found;
+    }
+
+    // Levenshtein distance between query and the closest prefix of word, or maxDistance + 1
+    // as soon as it is known to be larger
+    static int prefixDistance(String query, String word, int maxDistance) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char q = query.charAt(i - 1);
+            for (int j = 1; j <= word.length(); j++) {
+                int substitute = previous[j - 1] + (q == word.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) return maxDistance + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = maxDistance + 1;
+        for (int j = 0; j <= word.length(); j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    // Trigrams of the word with a start marker, so the first letters weigh like the rest
+    private static String[] grams(String word) {
+        String padded = "^" + word;
+        if (padded.length() < 3) return new String[]{padded};
+        String[] grams = new String[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = padded.substring(i, i + 3);
+        }
+        return grams;
+    }
+}
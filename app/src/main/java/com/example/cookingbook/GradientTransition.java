@@ -0,0 +1,38 @@
+package com.example.cookingbook;
+
+// The colors of a two-stop gradient part way between two others. Interpolates each channel with
+// int math into one reused array, so an animation frame allocates nothing.
+public class GradientTransition {
+
+    private final int[] colors = new int[2];
+    private int fromStart;
+    private int fromEnd;
+    private int toStart;
+    private int toEnd;
+
+    public void set(int fromStart, int fromEnd, int toStart, int toEnd) {
+        this.fromStart = fromStart;
+        this.fromEnd = fromEnd;
+        this.toStart = toStart;
+        this.toEnd = toEnd;
+    }
+
+    // Fills and returns the same array on every call
+    public int[] colorsAt(float fraction) {
+        int weight = Math.round(Math.max(0f, Math.min(1f, fraction)) * 256);
+        colors[0] = blend(fromStart, toStart, weight);
+        colors[1] = blend(fromEnd, toEnd, weight);
+        return colors;
+    }
+
+    // weight out of 256, for each of the four channels
+    static int blend(int from, int to, int weight) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = from >>> shift & 0xFF;
+            int b = to >>> shift & 0xFF;
+            result |= (a + ((b - a) * weight >> 8)) << shift;
+        }
+        return result;
+    }
+}
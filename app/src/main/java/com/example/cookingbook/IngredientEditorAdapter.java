@@ -0,0 +1,154 @@
+package com.example.cookingbook;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The ingredient list of RecipeFormActivity. Adding, removing and moving an ingredient notify
+// that one row, so an edit touches a single view instead of rebuilding the list. Each entry
+// keeps an id for as long as the form is open, so rows keep their views across moves.
+public class IngredientEditorAdapter extends RecyclerView.Adapter<IngredientEditorAdapter.ViewHolder> {
+
+    // Rebinds only the colors of a row
+    private static final Object PAYLOAD_COLOR = new Object();
+
+    private static class Entry {
+        final long id;
+        final String text;
+
+        Entry(long id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private long nextId;
+    private int textColor = 0xFF000000;
+
+    public IngredientEditorAdapter() {
+        setHasStableIds(true);
+    }
+
+    // Lets rows be dragged into a new order after a long press
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.setAdapter(this);
+        new ItemTouchHelper(new ItemTouchHelper.SimpleCallback(ItemTouchHelper.UP | ItemTouchHelper.DOWN, 0) {
+            @Override
+            public boolean onMove(@NonNull RecyclerView view, @NonNull RecyclerView.ViewHolder from,
+                                  @NonNull RecyclerView.ViewHolder to) {
+                move(from.getAdapterPosition(), to.getAdapterPosition());
+                return true;
+            }
+
+            @Override
+            public void onSwiped(@NonNull RecyclerView.ViewHolder holder, int direction) {
+            }
+        }).attachToRecyclerView(recyclerView);
+    }
+
+    public void setIngredients(List<String> ingredients) {
+        int removed = entries.size();
+        entries.clear();
+        notifyItemRangeRemoved(0, removed);
+        for (String ingredient : ingredients) {
+            entries.add(new Entry(nextId++, ingredient));
+        }
+        notifyItemRangeInserted(0, entries.size());
+    }
+
+    public void add(String ingredient) {
+        entries.add(new Entry(nextId++, ingredient));
+        notifyItemInserted(entries.size() - 1);
+    }
+
+    public void remove(int position) {
+        entries.remove(position);
+        notifyItemRemoved(position);
+    }
+
+    public void move(int from, int to) {
+        if (from == to || from < 0 || to < 0) return;
+        entries.add(to, entries.remove(from));
+        notifyItemMoved(from, to);
+    }
+
+    public ArrayList<String> getIngredients() {
+        ArrayList<String> ingredients = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            ingredients.add(entry.text);
+        }
+        return ingredients;
+    }
+
+    // Follows the form's gradient, only the colors of the rows are rebound
+    public void setTextColor(int color) {
+        if (color == textColor) return;
+        textColor = color;
+        notifyItemRangeChanged(0, entries.size(), PAYLOAD_COLOR);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return entries.get(position).id;
+    }
+
+    @Override
+    public int getItemCount() {
+        return entries.size();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.ingredient_item, parent, false);
+        ViewHolder holder = new ViewHolder(v);
+        holder.removeBtn.setOnClickListener(view -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                remove(position);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            bindColors(holder);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.text.setText("• " + entries.get(position).text);
+        bindColors(holder);
+    }
+
+    private void bindColors(ViewHolder holder) {
+        holder.text.setTextColor(textColor);
+        holder.removeBtn.setTextColor(textColor);
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+        final Button removeBtn;
+
+        ViewHolder(View v) {
+            super(v);
+            text = v.findViewById(R.id.ingredientText);
+            removeBtn = v.findViewById(R.id.removeBtn);
+        }
+    }
+}
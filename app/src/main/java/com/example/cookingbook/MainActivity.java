@@ -3,6 +3,7 @@ package com.example.cookingbook;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
@@ -14,6 +15,7 @@ import android.widget.LinearLayout;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.example.cookingbook.databinding.ActivityMainBinding;
 import com.google.android.material.button.MaterialButton;
 
@@ -26,6 +28,8 @@ public class MainActivity extends AppCompatActivity {
     private SharedPreferences prefs;
     private static final String PREFS_NAME = "display_preferences";
     private static final String KEY_COMPACT_MODE = "compact_mode";
+    // Debug builds log the list's frame times each time the screen is left
+    private FrameTimeMonitor frameTimeMonitor;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,8 +40,10 @@ public class MainActivity extends AppCompatActivity {
         emptyStateLayout = findViewById(R.id.emptyStateLayout);
         toggleDisplayBtn = findViewById(R.id.toggleDisplayBtn);
         prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-
-        RecipeManager.loadRecipes(this);
+        ColorUtils.preload(this);
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            frameTimeMonitor = new FrameTimeMonitor(this, "Recipe list");
+        }
 
         setupRecyclerView();
         setupSearch();
@@ -46,12 +52,37 @@ public class MainActivity extends AppCompatActivity {
         setupCategoryFilter();
         setupDietaryFilter();
         setupToggleDisplayButton();
-        updateEmptyState();
+        loadRecipes();
+    }
+
+    private void loadRecipes() {
+        // Editing is disabled until the journal has been replayed, positions are not final before that
+        binding.addBtn.setEnabled(false);
+        RecipeManager.loadRecipes(this, new RecipeManager.LoadListener() {
+            @Override
+            public void onCatalogMapped(MappedRecipeCatalog catalog) {
+                adapter.showCatalog(catalog);
+                updateEmptyState();
+            }
+
+            @Override
+            public void onRecipesAppended(int start, int count) {
+                adapter.refresh();
+                updateEmptyState();
+            }
+
+            @Override
+            public void onLoadFinished() {
+                adapter.refresh();
+                binding.addBtn.setEnabled(true);
+                updateEmptyState();
+            }
+        });
     }
 
     private void setupRecyclerView() {
         binding.recipeList.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new RecipeAdapter(this, RecipeManager.recipes);
+        adapter = new RecipeAdapter(this);
 
         // Load saved display mode preference
         boolean compactMode = prefs.getBoolean(KEY_COMPACT_MODE, false);
@@ -59,6 +90,19 @@ public class MainActivity extends AppCompatActivity {
         updateToggleButtonText();
 
         binding.recipeList.setAdapter(adapter);
+
+        // Filter results are diffed in the background and land after filter() returns
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                updateEmptyState();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                updateEmptyState();
+            }
+        });
     }
 
     private void setupAddButton() {
@@ -96,7 +140,6 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 adapter.filter(s.toString());
-                updateEmptyState();
             }
 
             @Override
@@ -106,7 +149,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setupCategoryFilter() {
-        String[] categories = {"All", "Appetizers", "Main Course", "Desserts", "Beverages", "Salads", "Other"};
+        String[] labels = RecipeCategory.labels();
+        String[] categories = new String[labels.length + 1];
+        categories[0] = "All";
+        System.arraycopy(labels, 0, categories, 1, labels.length);
         ArrayAdapter<String> categoryAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, categories);
         categoryAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         binding.categorySpinner.setAdapter(categoryAdapter);
@@ -114,9 +160,7 @@ public class MainActivity extends AppCompatActivity {
         binding.categorySpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                String selectedCategory = categories[position];
-                adapter.filterByCategory(selectedCategory);
-                updateEmptyState();
+                adapter.filterByCategory(position == 0 ? null : RecipeCategory.values()[position - 1]);
             }
 
             @Override
@@ -127,6 +171,7 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupDietaryFilter() {
         String[] dietaryOptions = {"All", "🌱 Vegetarian", "🌿 Vegan", "🌾 Gluten-Free", "🥩 Meat"};
+        int[] dietaryFlags = {0, Recipe.VEGETARIAN, Recipe.VEGAN, Recipe.GLUTEN_FREE, Recipe.MEAT};
         ArrayAdapter<String> dietaryAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, dietaryOptions);
         dietaryAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         binding.dietarySpinner.setAdapter(dietaryAdapter);
@@ -134,9 +179,7 @@ public class MainActivity extends AppCompatActivity {
         binding.dietarySpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                String selectedDietary = dietaryOptions[position];
-                adapter.filterByDietary(selectedDietary);
-                updateEmptyState();
+                adapter.filterByDietary(dietaryFlags[position]);
             }
 
             @Override
@@ -181,7 +224,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void updateEmptyState() {
-        if (adapter.getItemCount() == 0) {
+        if (adapter.getItemCount() == 0 && RecipeManager.isLoaded()) {
             binding.recipeList.setVisibility(View.GONE);
             emptyStateLayout.setVisibility(View.VISIBLE);
         } else {
@@ -193,11 +236,9 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        if (adapter != null) {
-            int itemCount = adapter.getItemCount();
-            if (itemCount > 0) {
-                adapter.notifyItemRangeChanged(0, itemCount);
-            }
+        if (adapter != null && RecipeManager.isLoaded()) {
+            // Picks up recipes added or edited in RecipeFormActivity, only those rows rebind
+            adapter.refresh();
         }
         if (binding != null) {
             binding.searchInput.setText("");
@@ -207,5 +248,25 @@ public class MainActivity extends AppCompatActivity {
             binding.dietarySpinner.setSelection(0);
         }
         updateEmptyState();
+        if (frameTimeMonitor != null) {
+            frameTimeMonitor.start();
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (frameTimeMonitor != null) {
+            frameTimeMonitor.stop();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        RecipeManager.setLoadListener(null);
+        if (adapter != null) {
+            adapter.release();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.example.cookingbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// Read-only view of a version 2+ snapshot mapped into memory. Opening costs the same for ten
+// recipes or ten thousand: only the header is parsed, and get(index) decodes just the slice of
+// the file that record N and its strings occupy. The page cache, not the Java heap, holds the data.
+public class MappedRecipeCatalog {
+
+    private final MappedByteBuffer buffer;
+    private final boolean hasIds;
+    private final RecipeCategory[] categories;
+    private final int stringCount;
+    private final int stringTable;
+    private final int recordCount;
+    private final int recordTable;
+
+    private MappedRecipeCatalog(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int position = RecipeBinaryWriter.MAGIC.length;
+        for (int i = 0; i < position; i++) {
+            if (buffer.get(i) != RecipeBinaryWriter.MAGIC[i]) {
+                throw new IOException("Not a recipe catalog");
+            }
+        }
+        int version = buffer.get(position++) & 0xFF;
+        if (version < RecipeBinaryWriter.VERSION_OFFSETS || version > RecipeBinaryWriter.VERSION) {
+            throw new IOException("Recipe catalog version " + version + " has no offset table");
+        }
+        hasIds = version >= RecipeBinaryWriter.VERSION;
+
+        int[] cursor = {position};
+        categories = new RecipeCategory[readVarint(cursor)];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = RecipeCategory.fromLabel(readString(cursor));
+        }
+
+        stringCount = buffer.getInt(cursor[0]);
+        stringTable = cursor[0] + 4;
+        int recordHeader = stringCount == 0
+                ? stringTable
+                : skipString(buffer.getInt(stringTable + 4 * (stringCount - 1)));
+        recordCount = buffer.getInt(recordHeader);
+        recordTable = recordHeader + 4;
+    }
+
+    // Returns null when the file is missing or predates the indexed format
+    public static MappedRecipeCatalog open(File file) throws IOException {
+        if (!file.exists()) return null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // The mapping stays valid after the channel is closed
+            int versionPosition = RecipeBinaryWriter.MAGIC.length;
+            if (buffer.limit() <= versionPosition
+                    || (buffer.get(versionPosition) & 0xFF) < RecipeBinaryWriter.VERSION_OFFSETS) {
+                return null;
+            }
+            return new MappedRecipeCatalog(buffer);
+        }
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public Recipe get(int index) {
+        int[] cursor = {recordOffset(index)};
+        int flags = buffer.get(cursor[0]++) & 0xFF;
+        long id = hasIds ? readVarLong(cursor) : 0;
+        String title = string(readVarint(cursor));
+        String description = string(readVarint(cursor));
+        String imageUri = string(readVarint(cursor));
+        int categoryRef = readVarint(cursor);
+        RecipeCategory category = categoryRef == 0 ? null : categories[categoryRef - 1];
+
+        int ingredientCount = readVarint(cursor);
+        ArrayList<String> ingredients = new ArrayList<>(ingredientCount);
+        for (int i = 0; i < ingredientCount; i++) {
+            ingredients.add(string(readVarint(cursor)));
+        }
+
+        Recipe recipe = new Recipe(title, description, imageUri, category, ingredients,
+                (flags & Recipe.VEGETARIAN) != 0,
+                (flags & Recipe.VEGAN) != 0,
+                (flags & Recipe.GLUTEN_FREE) != 0,
+                (flags & Recipe.MEAT) != 0);
+        recipe.setId(id);
+        return recipe;
+    }
+
+    public String getTitle(int index) {
+        int[] cursor = {recordOffset(index) + 1};
+        if (hasIds) {
+            readVarLong(cursor);
+        }
+        return string(readVarint(cursor));
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + recordCount);
+        }
+        return buffer.getInt(recordTable + 4 * index);
+    }
+
+    private String string(int ref) {
+        if (ref == 0) return null;
+        int[] cursor = {buffer.getInt(stringTable + 4 * (ref - 1))};
+        return readString(cursor);
+    }
+
+    private int skipString(int offset) {
+        int[] cursor = {offset};
+        int length = readVarint(cursor);
+        return cursor[0] + length;
+    }
+
+    // Absolute reads only, so one catalog can serve several threads without copying the buffer
+    private String readString(int[] cursor) {
+        int length = readVarint(cursor);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(cursor[0] + i);
+        }
+        cursor[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong(int[] cursor) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get(cursor[0]++) & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 70);
+        return value;
+    }
+
+    private int readVarint(int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get(cursor[0]++) & 0xFF;
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        return value;
+    }
+}
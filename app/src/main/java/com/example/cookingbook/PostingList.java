@@ -0,0 +1,49 @@
+package com.example.cookingbook;
+
+import java.util.Arrays;
+
+// Sorted, growable list of recipe ids. New recipes carry the highest id so far, which makes
+// adding an append in the common case.
+class PostingList {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    void add(long id) {
+        int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0 && position < size) return; // already present
+        if (position < 0) position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    boolean remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) return false;
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // Copies the ids to target starting at offset, returns the offset after the last one
+    int copyInto(long[] target, int offset) {
+        System.arraycopy(ids, 0, target, offset, size);
+        return offset + size;
+    }
+}
@@ -1,18 +1,39 @@
 package com.example.cookingbook;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 
 public class Recipe {
+    // Bits of getDietaryFlags()
+    public static final int VEGETARIAN = 1;
+    public static final int VEGAN = 1 << 1;
+    public static final int GLUTEN_FREE = 1 << 2;
+    public static final int MEAT = 1 << 3;
+
+    // Assigned by RecipeManager, 0 until the recipe has been stored
+    private long id;
     private String title;
     private String description;
     private String imageUri;
-    private String category;
+    private RecipeCategory category;
     private final ArrayList<String> ingredients;
     private boolean isVegetarian;
     private boolean isVegan;
     private boolean isGlutenFree;
     private boolean hasMeat;
 
+    // Normalized text for searching, computed on first use and never persisted. An edit replaces
+    // the whole Recipe, so a cached value can't outlive the text it was derived from.
+    private transient String searchTitle;
+    private transient String searchDescription;
+    private transient String searchIngredients;
+    private transient String[] titleTokens;
+    private transient String[] descriptionTokens;
+    private transient String[] ingredientTokens;
+    private transient String[] searchTokens;
+    private transient String[] ingredientKeys;
+
     public Recipe() {
         // Needed for Gson
         this.ingredients = new ArrayList<>();
@@ -22,7 +43,7 @@ public class Recipe {
         this.title = title;
         this.description = description;
         this.imageUri = imageUri;
-        this.category = "Other";
+        this.category = RecipeCategory.OTHER;
         this.ingredients = new ArrayList<>();
         this.isVegetarian = false;
         this.isVegan = false;
@@ -30,11 +51,11 @@ public class Recipe {
         this.hasMeat = false;
     }
 
-    public Recipe(String title, String description, String imageUri, String category) {
+    public Recipe(String title, String description, String imageUri, RecipeCategory category) {
         this.title = title;
         this.description = description;
         this.imageUri = imageUri;
-        this.category = category != null ? category : "Other";
+        this.category = category != null ? category : RecipeCategory.OTHER;
         this.ingredients = new ArrayList<>();
         this.isVegetarian = false;
         this.isVegan = false;
@@ -42,12 +63,12 @@ public class Recipe {
         this.hasMeat = false;
     }
 
-    public Recipe(String title, String description, String imageUri, String category,
+    public Recipe(String title, String description, String imageUri, RecipeCategory category,
                   ArrayList<String> ingredients, boolean isVegetarian, boolean isVegan, boolean isGlutenFree, boolean hasMeat) {
         this.title = title;
         this.description = description;
         this.imageUri = imageUri;
-        this.category = category != null ? category : "Other";
+        this.category = category != null ? category : RecipeCategory.OTHER;
         this.ingredients = ingredients != null ? ingredients : new ArrayList<>();
         this.isVegetarian = isVegetarian;
         this.isVegan = isVegan;
@@ -55,14 +76,105 @@ public class Recipe {
         this.hasMeat = hasMeat;
     }
 
+    public long getId() { return id; }
+    void setId(long id) { this.id = id; }
     public String getTitle() { return title; }
     public String getDescription() { return description; }
     public String getImageUri() { return imageUri; }
-    public String getCategory() { return category; }
+    // Gson leaves category null for labels this version doesn't know
+    public RecipeCategory getCategory() { return category != null ? category : RecipeCategory.OTHER; }
     public ArrayList<String> getIngredients() { return ingredients; }
     public boolean isVegetarian() { return isVegetarian; }
     public boolean isVegan() { return isVegan; }
     public boolean isGlutenFree() { return isGlutenFree; }
     public boolean hasMeat() { return hasMeat; }
 
-}
\ No newline at end of file
+    public int getDietaryFlags() {
+        int flags = 0;
+        if (isVegetarian) flags |= VEGETARIAN;
+        if (isVegan) flags |= VEGAN;
+        if (isGlutenFree) flags |= GLUTEN_FREE;
+        if (hasMeat) flags |= MEAT;
+        return flags;
+    }
+
+    public String getSearchTitle() {
+        if (searchTitle == null) {
+            searchTitle = SearchNormalizer.normalize(title);
+        }
+        return searchTitle;
+    }
+
+    public String getSearchDescription() {
+        if (searchDescription == null) {
+            searchDescription = SearchNormalizer.normalize(description);
+        }
+        return searchDescription;
+    }
+
+    public String getSearchIngredients() {
+        if (searchIngredients == null) {
+            searchIngredients = ingredients == null ? "" : SearchNormalizer.normalize(String.join("\n", ingredients));
+        }
+        return searchIngredients;
+    }
+
+    // Swaps ingredient strings for the dictionary's shared instances. Only for recipes no other
+    // thread can see yet.
+    void internStrings(StringDictionary dictionary) {
+        if (ingredients == null) return;
+        for (int i = 0; i < ingredients.size(); i++) {
+            ingredients.set(i, dictionary.intern(ingredients.get(i)));
+        }
+    }
+
+    // Words of each field in order, repeats included
+    public String[] getTitleTokens() {
+        if (titleTokens == null) {
+            titleTokens = SearchNormalizer.tokenize(getSearchTitle());
+        }
+        return titleTokens;
+    }
+
+    public String[] getDescriptionTokens() {
+        if (descriptionTokens == null) {
+            descriptionTokens = SearchNormalizer.tokenize(getSearchDescription());
+        }
+        return descriptionTokens;
+    }
+
+    public String[] getIngredientTokens() {
+        if (ingredientTokens == null) {
+            ingredientTokens = SearchNormalizer.tokenize(getSearchIngredients());
+        }
+        return ingredientTokens;
+    }
+
+    // Distinct words of title, description and ingredients
+    public String[] getSearchTokens() {
+        if (searchTokens == null) {
+            LinkedHashSet<String> tokens = new LinkedHashSet<>();
+            tokens.addAll(Arrays.asList(getTitleTokens()));
+            tokens.addAll(Arrays.asList(getDescriptionTokens()));
+            tokens.addAll(Arrays.asList(getIngredientTokens()));
+            searchTokens = tokens.toArray(new String[0]);
+        }
+        return searchTokens;
+    }
+
+    // Distinct SearchNormalizer.ingredientKey of each ingredient
+    public String[] getIngredientKeys() {
+        if (ingredientKeys == null) {
+            LinkedHashSet<String> keys = new LinkedHashSet<>();
+            if (ingredients != null) {
+                for (String ingredient : ingredients) {
+                    String key = SearchNormalizer.ingredientKey(ingredient);
+                    if (!key.isEmpty()) keys.add(key);
+                }
+            }
+            ingredientKeys = keys.toArray(new String[0]);
+        }
+        return ingredientKeys;
+    }
+
+}
@@ -3,45 +3,137 @@ package com.example.cookingbook;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.*;
 import android.widget.*;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
-import com.bumptech.glide.request.RequestOptions;
-
-import java.util.ArrayList;
+import java.util.List;
 
 public class RecipeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private static final int VIEW_TYPE_FULL = 0;
     private static final int VIEW_TYPE_COMPACT = 1;
+    private static final String TAG = "RecipeAdapter";
+
+    // Same id is the same row. Edits replace the Recipe instance, so an unchanged instance means
+    // the row's content is unchanged and it is never rebound.
+    private static final DiffUtil.ItemCallback<Recipe> DIFF_CALLBACK = new DiffUtil.ItemCallback<Recipe>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+            return oldItem == newItem;
+        }
+    };
 
     private final Context context;
-    private final ArrayList<Recipe> recipes;
-    private final ArrayList<Recipe> filteredRecipes;
+    // Diffs each filter result against the shown list on a background thread
+    private final AsyncListDiffer<Recipe> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Filtering runs on a worker, only the result of the latest query is shown
+    private final RecipeSearchPipeline searchPipeline;
     private String currentSearchQuery = "";
-    private String currentCategory = "All";
-    private String currentDietary = "All";
+    private RecipeCategory currentCategory; // null for all categories
+    private int currentDietary; // Recipe.VEGETARIAN etc., 0 for no restriction
     private boolean isCompactMode = false;
-
-    public RecipeAdapter(Context ctx, ArrayList<Recipe> list) {
+    // Rows come straight from the mapped snapshot, a window of pages at a time, until the heap
+    // list has finished loading. From then on all rows come from that list.
+    private RecipePageSource catalogPages;
+    private final RecipeImageLoader imageLoader;
+    private final RecipeRowTextCache rowTexts;
+    private int prefetchDepth = RecipeImageLoader.DEFAULT_PREFETCH_DEPTH;
+    private RecyclerView recyclerView;
+
+    public RecipeAdapter(Context ctx) {
         this.context = ctx;
-        this.recipes = list;
-        this.filteredRecipes = new ArrayList<>(list);
+        RecipeRowSource rows = new RecipeRowSource() {
+            @Override
+            public int getItemCount() {
+                return RecipeAdapter.this.getItemCount();
+            }
+
+            @Override
+            public Recipe getRecipe(int position) {
+                return RecipeAdapter.this.getRecipe(position);
+            }
+
+            @Override
+            public boolean isCompactMode() {
+                return isCompactMode;
+            }
+        };
+        this.imageLoader = new RecipeImageLoader(ctx, rows);
+        this.rowTexts = new RecipeRowTextCache(rows, RecipeRowTextCache.DEFAULT_CAPACITY);
+        this.searchPipeline = new RecipeSearchPipeline(new Handler(Looper.getMainLooper())::post, this::showResults);
+        differ.submitList(RecipeManager.snapshot());
+    }
+
+    // Stops the search worker, the adapter can't filter afterwards
+    public void release() {
+        searchPipeline.shutdown();
+        rowTexts.shutdown();
+        Log.i(TAG, "Search metrics: " + searchPipeline.getMetrics());
+        Log.i(TAG, "Image prefetch: " + imageLoader.getMetrics());
+        Log.i(TAG, "Row text cache: " + rowTexts.getMetrics());
+    }
+
+    // How many rows ahead of the scroll images are fetched for, 0 turns prefetching off
+    public void setPrefetchDepth(int depth) {
+        prefetchDepth = depth;
+        if (recyclerView != null) {
+            attachPreloader();
+        }
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+        attachPreloader();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        imageLoader.detach();
+        this.recyclerView = null;
+    }
+
+    private void attachPreloader() {
+        if (prefetchDepth > 0) {
+            imageLoader.attach(recyclerView, prefetchDepth);
+        } else {
+            imageLoader.detach();
+        }
+    }
+
+    public void showCatalog(MappedRecipeCatalog catalog) {
+        differ.submitList(null); // dispatches its removals right away
+        catalogPages = RecipePageSource.of(catalog);
+        rowTexts.onRowsChanged();
+        notifyItemRangeInserted(0, catalogPages.size());
     }
 
     public void toggleDisplayMode() {
-        isCompactMode = !isCompactMode;
-        notifyDataSetChanged();
+        setDisplayMode(!isCompactMode);
     }
 
+    // Every row changes its view type, but the rows themselves stay
     public void setDisplayMode(boolean compact) {
         isCompactMode = compact;
-        notifyDataSetChanged();
+        int itemCount = getItemCount();
+        if (itemCount > 0) {
+            notifyItemRangeChanged(0, itemCount);
+        }
     }
 
     public boolean isCompactMode() {
@@ -58,6 +150,11 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         final TextView description;
         final TextView ingredientsPreview;
         final LinearLayout dietaryTagsContainer;
+        // One per flag, created with the holder and only shown or hidden when bound
+        final TextView vegetarianTag;
+        final TextView veganTag;
+        final TextView glutenFreeTag;
+        final TextView meatTag;
         final ImageView image;
         final Button editBtn;
         final Button shareBtn;
@@ -68,10 +165,31 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
             description = v.findViewById(R.id.recipeDesc);
             ingredientsPreview = v.findViewById(R.id.ingredientsPreview);
             dietaryTagsContainer = v.findViewById(R.id.dietaryTagsContainer);
+            vegetarianTag = addDietaryTag(dietaryTagsContainer, "🌱 Vegetarian");
+            veganTag = addDietaryTag(dietaryTagsContainer, "🌿 Vegan");
+            glutenFreeTag = addDietaryTag(dietaryTagsContainer, "🌾 Gluten-Free");
+            meatTag = addDietaryTag(dietaryTagsContainer, "🥩 Meat");
             image = v.findViewById(R.id.recipeImage);
             editBtn = v.findViewById(R.id.editBtn);
             shareBtn = v.findViewById(R.id.shareBtn);
         }
+
+        private static TextView addDietaryTag(LinearLayout container, String tagText) {
+            TextView tag = new TextView(container.getContext());
+            tag.setText(tagText);
+            tag.setTextSize(12);
+            tag.setTextColor(0xFFFFFFFF);
+            tag.setBackgroundColor(0xFF4CAF50);
+            tag.setPadding(12, 6, 12, 6);
+            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.WRAP_CONTENT,
+                    LinearLayout.LayoutParams.WRAP_CONTENT);
+            params.setMargins(4, 0, 4, 0);
+            tag.setLayoutParams(params);
+            tag.setVisibility(View.GONE);
+            container.addView(tag);
+            return tag;
+        }
     }
 
     public static class CompactViewHolder extends RecyclerView.ViewHolder {
@@ -94,214 +212,147 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         if (viewType == VIEW_TYPE_COMPACT) {
             View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.recipe_item_compact, parent, false);
-            return new CompactViewHolder(v);
+            CompactViewHolder holder = new CompactViewHolder(v);
+            imageLoader.measure(holder.image, true);
+            setClickListeners(holder, holder.editBtn, holder.shareBtn);
+            return holder;
         } else {
             View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.recipe_item, parent, false);
-            return new FullViewHolder(v);
+            FullViewHolder holder = new FullViewHolder(v);
+            imageLoader.measure(holder.image, false);
+            setClickListeners(holder, holder.editBtn, holder.shareBtn);
+            return holder;
         }
     }
 
+    // Set once per holder and look up the row's recipe when clicked, so binding creates no listeners
+    private void setClickListeners(RecyclerView.ViewHolder holder, Button editBtn, Button shareBtn) {
+        editBtn.setOnClickListener(view -> {
+            int position = holder.getAdapterPosition();
+            if (!RecipeManager.isLoaded() || position == RecyclerView.NO_POSITION) return;
+            Intent intent = new Intent(context, RecipeFormActivity.class);
+            intent.putExtra(RecipeFormActivity.EXTRA_RECIPE_ID, getRecipe(position).getId());
+            context.startActivity(intent);
+        });
+        shareBtn.setOnClickListener(view -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                shareRecipe(getRecipe(position));
+            }
+        });
+    }
+
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        final Recipe r = filteredRecipes.get(position);
+        final Recipe r = getRecipe(position);
 
         if (holder instanceof CompactViewHolder) {
             bindCompactViewHolder((CompactViewHolder) holder, r);
         } else if (holder instanceof FullViewHolder) {
-            bindFullViewHolder((FullViewHolder) holder, r);
+            bindFullViewHolder((FullViewHolder) holder, r, position);
         }
     }
 
     private void bindCompactViewHolder(CompactViewHolder holder, Recipe r) {
         holder.title.setText(r.getTitle());
-
-        RequestOptions requestOptions = new RequestOptions()
-                .placeholder(R.drawable.placeholder)
-                .error(R.drawable.placeholder)
-                .centerCrop()
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .skipMemoryCache(false);
-
-        if (r.getImageUri() != null && !r.getImageUri().isEmpty()) {
-            Glide.with(context)
-                    .load(Uri.parse(r.getImageUri()))
-                    .apply(requestOptions)
-                    .into(holder.image);
-        } else {
-            Glide.with(context)
-                    .load(R.drawable.placeholder)
-                    .apply(requestOptions)
-                    .into(holder.image);
-        }
-
-        holder.editBtn.setOnClickListener(view -> {
-            int originalPosition = recipes.indexOf(r);
-            Intent intent = new Intent(context, RecipeFormActivity.class);
-            intent.putExtra("position", originalPosition);
-            context.startActivity(intent);
-        });
-
-        holder.shareBtn.setOnClickListener(view -> shareRecipe(r));
+        imageLoader.load(r, true, holder.image);
     }
 
-    private void bindFullViewHolder(FullViewHolder holder, Recipe r) {
+    private void bindFullViewHolder(FullViewHolder holder, Recipe r, int position) {
         holder.title.setText(r.getTitle());
-        holder.description.setText(r.getDescription());
-
-        // Display ingredients preview
-        if (r.getIngredients() != null && !r.getIngredients().isEmpty()) {
-            StringBuilder ingredientsText = new StringBuilder("Ingredients: ");
-            for (int i = 0; i < Math.min(3, r.getIngredients().size()); i++) {
-                if (i > 0) ingredientsText.append(", ");
-                ingredientsText.append(r.getIngredients().get(i));
-            }
-            if (r.getIngredients().size() > 3) {
-                ingredientsText.append(", +").append(r.getIngredients().size() - 3).append(" more");
-            }
-            holder.ingredientsPreview.setText(ingredientsText.toString());
+        RecipeRowText text = rowTexts.get(position);
+        RecipeRowTextCache.setText(holder.description, text.description);
+        if (text.ingredientsPreview != null) {
+            RecipeRowTextCache.setText(holder.ingredientsPreview, text.ingredientsPreview);
             holder.ingredientsPreview.setVisibility(View.VISIBLE);
         } else {
             holder.ingredientsPreview.setVisibility(View.GONE);
         }
 
         // Display dietary tags
-        holder.dietaryTagsContainer.removeAllViews();
-        if (r.isVegetarian()) {
-            addDietaryTag(holder.dietaryTagsContainer, "🌱 Vegetarian");
-        }
-        if (r.isVegan()) {
-            addDietaryTag(holder.dietaryTagsContainer, "🌿 Vegan");
-        }
-        if (r.isGlutenFree()) {
-            addDietaryTag(holder.dietaryTagsContainer, "🌾 Gluten-Free");
-        }
-        if (r.hasMeat()) {
-            addDietaryTag(holder.dietaryTagsContainer, "🥩 Meat");
-        }
-
-        RequestOptions requestOptions = new RequestOptions()
-                .placeholder(R.drawable.placeholder)
-                .error(R.drawable.placeholder)
-                .fitCenter()
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .skipMemoryCache(false)
-                .dontTransform();
-
-        if (r.getImageUri() != null && !r.getImageUri().isEmpty()) {
-            Glide.with(context)
-                    .load(Uri.parse(r.getImageUri()))
-                    .apply(requestOptions)
-                    .into(holder.image);
-        } else {
-            Glide.with(context)
-                    .load(R.drawable.placeholder)
-                    .apply(requestOptions)
-                    .into(holder.image);
-        }
-
-        holder.editBtn.setOnClickListener(view -> {
-            int originalPosition = recipes.indexOf(r);
-            Intent intent = new Intent(context, RecipeFormActivity.class);
-            intent.putExtra("position", originalPosition);
-            context.startActivity(intent);
-        });
+        int flags = text.dietaryFlags;
+        holder.vegetarianTag.setVisibility((flags & Recipe.VEGETARIAN) != 0 ? View.VISIBLE : View.GONE);
+        holder.veganTag.setVisibility((flags & Recipe.VEGAN) != 0 ? View.VISIBLE : View.GONE);
+        holder.glutenFreeTag.setVisibility((flags & Recipe.GLUTEN_FREE) != 0 ? View.VISIBLE : View.GONE);
+        holder.meatTag.setVisibility((flags & Recipe.MEAT) != 0 ? View.VISIBLE : View.GONE);
 
-        holder.shareBtn.setOnClickListener(view -> shareRecipe(r));
+        imageLoader.load(r, false, holder.image);
     }
 
-    private void addDietaryTag(LinearLayout container, String tagText) {
-        TextView tag = new TextView(context);
-        tag.setText(tagText);
-        tag.setTextSize(12);
-        tag.setTextColor(0xFFFFFFFF);
-        tag.setBackgroundColor(0xFF4CAF50);
-        tag.setPadding(12, 6, 12, 6);
-        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.WRAP_CONTENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT);
-        params.setMargins(4, 0, 4, 0);
-        tag.setLayoutParams(params);
-        container.addView(tag);
+    private Recipe getRecipe(int position) {
+        return catalogPages != null ? catalogPages.get(position) : differ.getCurrentList().get(position);
     }
 
     @Override
     public int getItemCount() {
-        return filteredRecipes.size();
+        return catalogPages != null ? catalogPages.size() : differ.getCurrentList().size();
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        if (holder instanceof FullViewHolder) {
+            FullViewHolder full = (FullViewHolder) holder;
+            rowTexts.measure(full.description, full.ingredientsPreview);
+        }
     }
 
     @Override
     public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
         super.onViewRecycled(holder);
         if (holder instanceof FullViewHolder) {
-            Glide.with(context).clear(((FullViewHolder) holder).image);
+            imageLoader.clear(((FullViewHolder) holder).image);
         } else if (holder instanceof CompactViewHolder) {
-            Glide.with(context).clear(((CompactViewHolder) holder).image);
+            imageLoader.clear(((CompactViewHolder) holder).image);
         }
     }
 
+    // Re-runs the current filters after the underlying list changed
+    public void refresh() {
+        applyFilters(0);
+    }
+
+    // Typing is debounced, so a burst of keystrokes runs a single query
     public void filter(String query) {
         currentSearchQuery = query;
-        applyFilters();
+        applyFilters(RecipeSearchPipeline.DEFAULT_DEBOUNCE_MS);
     }
 
-    public void filterByCategory(String category) {
+    public void filterByCategory(RecipeCategory category) {
         currentCategory = category;
-        applyFilters();
+        applyFilters(0);
     }
 
-    public void filterByDietary(String dietary) {
-        currentDietary = dietary;
-        applyFilters();
+    public void filterByDietary(int dietaryFlags) {
+        currentDietary = dietaryFlags;
+        applyFilters(0);
     }
 
-    private void applyFilters() {
-        ArrayList<Recipe> newFilteredRecipes = new ArrayList<>();
-
-        for (Recipe recipe : recipes) {
-            boolean matchesSearch = currentSearchQuery.isEmpty() ||
-                    (recipe.getTitle() != null && recipe.getTitle().toLowerCase().contains(currentSearchQuery.toLowerCase())) ||
-                    (recipe.getDescription() != null && recipe.getDescription().toLowerCase().contains(currentSearchQuery.toLowerCase()));
-
-            boolean matchesCategory = currentCategory.equals("All") ||
-                    (recipe.getCategory() != null && recipe.getCategory().equals(currentCategory));
-
-            boolean matchesDietary = currentDietary.equals("All");
-            if (!matchesDietary) {
-                if (currentDietary.contains("Vegetarian")) {
-                    matchesDietary = recipe.isVegetarian();
-                } else if (currentDietary.contains("Vegan")) {
-                    matchesDietary = recipe.isVegan();
-                } else if (currentDietary.contains("Gluten-Free")) {
-                    matchesDietary = recipe.isGlutenFree();
-                } else if (currentDietary.contains("Meat")) {
-                    matchesDietary = recipe.hasMeat();
-                }
-            }
-
-            if (matchesSearch && matchesCategory && matchesDietary) {
-                newFilteredRecipes.add(recipe);
-            }
+    private void applyFilters(long debounceMs) {
+        RecipeQuery query = new RecipeQuery(currentSearchQuery, currentCategory, currentDietary);
+        if (catalogPages != null && query.isUnfiltered() && !RecipeManager.isLoaded()) {
+            searchPipeline.cancel();
+            return; // The mapped snapshot already shows everything
         }
 
-        int oldSize = filteredRecipes.size();
-        int newSize = newFilteredRecipes.size();
-
-        filteredRecipes.clear();
-        filteredRecipes.addAll(newFilteredRecipes);
+        // The worker gets its own copy, the list keeps changing on the main thread
+        List<Recipe> snapshot = RecipeManager.snapshot();
+        RecipeSearchIndex searchIndex = RecipeManager.getSearchIndex();
+        RecipeFacetIndex facetIndex = RecipeManager.getFacetIndex();
+        searchPipeline.submit(query, () -> query.run(snapshot, searchIndex, facetIndex), debounceMs);
+    }
 
-        if (oldSize > newSize) {
-            notifyItemRangeRemoved(newSize, oldSize - newSize);
-            if (newSize > 0) {
-                notifyItemRangeChanged(0, newSize);
-            }
-        } else if (oldSize < newSize) {
-            if (oldSize > 0) {
-                notifyItemRangeChanged(0, oldSize);
-            }
-            notifyItemRangeInserted(oldSize, newSize - oldSize);
-        } else {
-            notifyItemRangeChanged(0, newSize);
+    private void showResults(RecipeQuery query, List<Recipe> results, long latencyMs) {
+        if (catalogPages != null) {
+            // Leaving the mapped rows, the differ starts from an empty list and inserts everything
+            int catalogSize = catalogPages.size();
+            Log.d(TAG, "Catalog paging: " + catalogPages.getPagesLoaded() + " pages decoded, "
+                    + catalogPages.getPagesEvicted() + " evicted");
+            catalogPages = null;
+            notifyItemRangeRemoved(0, catalogSize);
         }
+        differ.submitList(results, rowTexts::onRowsChanged);
+        Log.d(TAG, "Query \"" + query.getText() + "\" matched " + results.size() + " recipes in " + latencyMs + " ms");
     }
 
     private void shareRecipe(Recipe recipe) {
@@ -0,0 +1,158 @@
+package com.example.cookingbook;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+// Reads the format produced by RecipeBinaryWriter. Table strings are decoded once, so repeated
+// titles and ingredients come back as shared String instances.
+public class RecipeBinaryReader {
+
+    private final InputStream in;
+    private byte[] buffer = new byte[256];
+
+    public RecipeBinaryReader(InputStream in) {
+        this.in = new BufferedInputStream(in);
+    }
+
+    public static boolean hasMagic(byte[] header) {
+        if (header.length < RecipeBinaryWriter.MAGIC.length) return false;
+        for (int i = 0; i < RecipeBinaryWriter.MAGIC.length; i++) {
+            if (header[i] != RecipeBinaryWriter.MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    public ArrayList<Recipe> readAll() throws IOException {
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        read(recipes::add);
+        return recipes;
+    }
+
+    public void read(RecipeJournal.RecipeSink sink) throws IOException {
+        byte[] magic = new byte[RecipeBinaryWriter.MAGIC.length];
+        readFully(magic, magic.length);
+        if (!hasMagic(magic)) {
+            throw new IOException("Not a recipe catalog");
+        }
+        int version = readByte();
+        if (version < RecipeBinaryWriter.VERSION_STREAM || version > RecipeBinaryWriter.VERSION) {
+            throw new IOException("Unsupported recipe catalog version " + version);
+        }
+        boolean indexed = version >= RecipeBinaryWriter.VERSION_OFFSETS;
+        boolean hasIds = version >= RecipeBinaryWriter.VERSION;
+
+        String[] categoryLabels = readTable(readVarint());
+        RecipeCategory[] categories = new RecipeCategory[categoryLabels.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = RecipeCategory.fromLabel(categoryLabels[i]);
+        }
+        String[] strings = readTable(indexed ? readIndexedCount() : readVarint());
+
+        int count = indexed ? readIndexedCount() : readVarint();
+        for (int i = 0; i < count; i++) {
+            int flags = readByte();
+            long id = hasIds ? readVarLong() : 0;
+            String title = lookup(strings, readVarint());
+            String description = lookup(strings, readVarint());
+            String imageUri = lookup(strings, readVarint());
+            int categoryRef = readVarint();
+            if (categoryRef > categories.length) {
+                throw new IOException("Category reference out of range: " + categoryRef);
+            }
+            RecipeCategory category = categoryRef == 0 ? null : categories[categoryRef - 1];
+
+            int ingredientCount = readVarint();
+            ArrayList<String> ingredients = new ArrayList<>(ingredientCount);
+            for (int j = 0; j < ingredientCount; j++) {
+                ingredients.add(lookup(strings, readVarint()));
+            }
+
+            Recipe recipe = new Recipe(title, description, imageUri, category, ingredients,
+                    (flags & Recipe.VEGETARIAN) != 0,
+                    (flags & Recipe.VEGAN) != 0,
+                    (flags & Recipe.GLUTEN_FREE) != 0,
+                    (flags & Recipe.MEAT) != 0);
+            recipe.setId(id);
+            sink.accept(recipe);
+        }
+    }
+
+    private String[] readTable(int size) throws IOException {
+        String[] table = new String[size];
+        for (int i = 0; i < table.length; i++) {
+            int length = readVarint();
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            readFully(buffer, length);
+            table[i] = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+        return table;
+    }
+
+    private static String lookup(String[] table, int ref) throws IOException {
+        if (ref == 0) return null;
+        if (ref > table.length) {
+            throw new IOException("String reference out of range: " + ref);
+        }
+        return table[ref - 1];
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+
+    // Reads a fixed-width count and skips the offset table behind it, sequential reads don't need it
+    private int readIndexedCount() throws IOException {
+        int count = readInt();
+        long skip = 4L * count;
+        while (skip > 0) {
+            long skipped = in.skip(skip);
+            if (skipped <= 0) {
+                readByte();
+                skipped = 1;
+            }
+            skip -= skipped;
+        }
+        return count;
+    }
+
+    private int readInt() throws IOException {
+        return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(target, read, length - read);
+            if (n < 0) throw new EOFException();
+            read += n;
+        }
+    }
+}
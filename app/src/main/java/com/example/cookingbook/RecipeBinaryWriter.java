@@ -0,0 +1,154 @@
+package com.example.cookingbook;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+// Compact binary form of the recipe list.
+//
+// Layout: magic "CBK", version byte, category dictionary, shared string table, then the records.
+// Lengths and table references are unsigned LEB128 varints, references are stored as index + 1
+// so that 0 can stand for null, and the four dietary booleans share a single flags byte
+// (Recipe.getDietaryFlags()). Categories are stored by label.
+//
+// Since version 2 the string table and the records are each preceded by a 32-bit count and a
+// table of fixed-width absolute offsets, so MappedRecipeCatalog can decode a single string or
+// record straight out of a mapped file. Version 1 used varint counts and had no offset tables.
+// Version 3 added the recipe id as a varint right after the flags byte.
+public class RecipeBinaryWriter {
+
+    static final byte[] MAGIC = {'C', 'B', 'K'};
+    static final int VERSION = 3;
+    static final int VERSION_OFFSETS = 2;
+    static final int VERSION_STREAM = 1;
+
+    private final OutputStream out;
+
+    public RecipeBinaryWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out);
+    }
+
+    public void write(List<Recipe> recipes) throws IOException {
+        StringTable categories = new StringTable();
+        StringTable strings = new StringTable();
+        for (Recipe recipe : recipes) {
+            categories.add(recipe.getCategory().getLabel());
+            strings.add(recipe.getTitle());
+            strings.add(recipe.getDescription());
+            strings.add(recipe.getImageUri());
+            if (recipe.getIngredients() != null) {
+                for (String ingredient : recipe.getIngredients()) {
+                    strings.add(ingredient);
+                }
+            }
+        }
+
+        Buffer head = new Buffer();
+        head.write(MAGIC, 0, MAGIC.length);
+        head.write(VERSION);
+        head.writeVarint(categories.values.size());
+        for (String category : categories.values) {
+            head.writeString(category);
+        }
+
+        Buffer stringData = new Buffer();
+        int[] stringOffsets = new int[strings.values.size()];
+        for (int i = 0; i < stringOffsets.length; i++) {
+            stringOffsets[i] = stringData.size();
+            stringData.writeString(strings.values.get(i));
+        }
+
+        Buffer recordData = new Buffer();
+        int[] recordOffsets = new int[recipes.size()];
+        for (int i = 0; i < recordOffsets.length; i++) {
+            recordOffsets[i] = recordData.size();
+            writeRecord(recordData, recipes.get(i), categories, strings);
+        }
+
+        int stringDataStart = head.size() + 4 + 4 * stringOffsets.length;
+        int recordDataStart = stringDataStart + stringData.size() + 4 + 4 * recordOffsets.length;
+
+        head.writeTo(out);
+        writeTable(stringOffsets, stringDataStart);
+        stringData.writeTo(out);
+        writeTable(recordOffsets, recordDataStart);
+        recordData.writeTo(out);
+        out.flush();
+    }
+
+    private static void writeRecord(Buffer buffer, Recipe recipe, StringTable categories, StringTable strings) {
+        buffer.write(recipe.getDietaryFlags());
+        buffer.writeVarLong(recipe.getId());
+        buffer.writeVarint(strings.ref(recipe.getTitle()));
+        buffer.writeVarint(strings.ref(recipe.getDescription()));
+        buffer.writeVarint(strings.ref(recipe.getImageUri()));
+        buffer.writeVarint(categories.ref(recipe.getCategory().getLabel()));
+
+        List<String> ingredients = recipe.getIngredients();
+        int count = ingredients != null ? ingredients.size() : 0;
+        buffer.writeVarint(count);
+        for (int i = 0; i < count; i++) {
+            buffer.writeVarint(strings.ref(ingredients.get(i)));
+        }
+    }
+
+    private void writeTable(int[] offsets, int base) throws IOException {
+        writeInt(offsets.length);
+        for (int offset : offsets) {
+            writeInt(base + offset);
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    // Distinct strings in first-seen order
+    private static class StringTable {
+        private final HashMap<String, Integer> indices = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        void add(String value) {
+            if (value != null && !indices.containsKey(value)) {
+                indices.put(value, values.size());
+                values.add(value);
+            }
+        }
+
+        int ref(String value) {
+            return value == null ? 0 : indices.get(value) + 1;
+        }
+    }
+}
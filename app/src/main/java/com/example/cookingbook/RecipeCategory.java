@@ -0,0 +1,39 @@
+package com.example.cookingbook;
+
+import com.google.gson.annotations.SerializedName;
+
+// Serialized by label, so stored recipes keep the same JSON shape as when category was a String
+public enum RecipeCategory {
+    @SerializedName("Appetizers") APPETIZERS("Appetizers"),
+    @SerializedName("Main Course") MAIN_COURSE("Main Course"),
+    @SerializedName("Desserts") DESSERTS("Desserts"),
+    @SerializedName("Beverages") BEVERAGES("Beverages"),
+    @SerializedName("Salads") SALADS("Salads"),
+    @SerializedName("Other") OTHER("Other");
+
+    private final String label;
+
+    RecipeCategory(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static RecipeCategory fromLabel(String label) {
+        for (RecipeCategory category : values()) {
+            if (category.label.equals(label)) return category;
+        }
+        return OTHER;
+    }
+
+    public static String[] labels() {
+        RecipeCategory[] categories = values();
+        String[] labels = new String[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            labels[i] = categories[i].label;
+        }
+        return labels;
+    }
+}
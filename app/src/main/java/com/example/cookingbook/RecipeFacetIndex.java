@@ -0,0 +1,82 @@
+package com.example.cookingbook;
+
+import java.util.BitSet;
+import java.util.HashMap;
+
+// One bit set per category and per dietary flag, addressed by recipe id. Combining facets is a
+// word-wide AND over the sets instead of a per-recipe comparison.
+public class RecipeFacetIndex {
+
+    private static final int[] DIETARY_FLAGS = {
+            Recipe.VEGETARIAN, Recipe.VEGAN, Recipe.GLUTEN_FREE, Recipe.MEAT
+    };
+
+    private final BitSet all = new BitSet();
+    private final BitSet[] byCategory = new BitSet[RecipeCategory.values().length];
+    private final BitSet[] byDietary = new BitSet[DIETARY_FLAGS.length];
+    // What each id was indexed under, so removal doesn't need the old recipe
+    private final HashMap<Long, Integer> facetsById = new HashMap<>();
+
+    public RecipeFacetIndex() {
+        for (int i = 0; i < byCategory.length; i++) {
+            byCategory[i] = new BitSet();
+        }
+        for (int i = 0; i < byDietary.length; i++) {
+            byDietary[i] = new BitSet();
+        }
+    }
+
+    public synchronized void add(Recipe recipe) {
+        int bit = bitOf(recipe.getId());
+        int category = recipe.getCategory().ordinal();
+        int dietary = recipe.getDietaryFlags();
+
+        all.set(bit);
+        byCategory[category].set(bit);
+        for (int i = 0; i < DIETARY_FLAGS.length; i++) {
+            if ((dietary & DIETARY_FLAGS[i]) != 0) {
+                byDietary[i].set(bit);
+            }
+        }
+        facetsById.put(recipe.getId(), (category << DIETARY_FLAGS.length) | dietary);
+    }
+
+    public synchronized void remove(long id) {
+        Integer facets = facetsById.remove(id);
+        if (facets == null) return;
+        int bit = bitOf(id);
+        all.clear(bit);
+        byCategory[facets >>> DIETARY_FLAGS.length].clear(bit);
+        for (BitSet set : byDietary) {
+            set.clear(bit);
+        }
+    }
+
+    public synchronized void update(Recipe recipe) {
+        remove(recipe.getId());
+        add(recipe);
+    }
+
+    public synchronized int size() {
+        return facetsById.size();
+    }
+
+    // Ids in the given category (null for any) carrying every flag of dietaryMask. The returned
+    // set is a copy the caller may modify.
+    public synchronized BitSet select(RecipeCategory category, int dietaryMask) {
+        BitSet result = (BitSet) (category == null ? all : byCategory[category.ordinal()]).clone();
+        for (int i = 0; i < DIETARY_FLAGS.length && !result.isEmpty(); i++) {
+            if ((dietaryMask & DIETARY_FLAGS[i]) != 0) {
+                result.and(byDietary[i]);
+            }
+        }
+        return result;
+    }
+
+    private static int bitOf(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recipe id out of range: " + id);
+        }
+        return (int) id;
+    }
+}
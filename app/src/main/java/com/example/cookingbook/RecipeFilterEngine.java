@@ -0,0 +1,115 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+// Filters a recipe list by scanning fixed-size chunks in parallel on a ForkJoinPool. Each chunk
+// collects its own matches and the chunks are joined in order, so the result keeps list order.
+// Lists up to the chunk size are scanned on the calling thread, forking them costs more than
+// it saves.
+// Only queries that run before RecipeManager has built the search and facet indexes get here,
+// that is while a large cookbook is still loading; after that RecipeQuery goes through the
+// indexes and this engine sits idle.
+public class RecipeFilterEngine {
+
+    // A chunk takes around 0.25 ms to scan at ~30 ns per recipe, forking it is noise next to
+    // that. 1024-recipe chunks were measurably slower than a plain scan.
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    // How many recipes a sequential scan gets through between interrupt checks
+    private static final int INTERRUPT_CHECK_INTERVAL = 1024;
+
+    private static final RecipeFilterEngine DEFAULT = new RecipeFilterEngine(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public RecipeFilterEngine(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public static RecipeFilterEngine getDefault() {
+        return DEFAULT;
+    }
+
+    // Matching recipes in list order, or null if the calling thread was interrupted meanwhile
+    public List<Recipe> filter(List<Recipe> recipes, Predicate<Recipe> predicate) {
+        Thread caller = Thread.currentThread();
+        int size = recipes.size();
+        if (size <= chunkSize || pool.getParallelism() < 2) {
+            ArrayList<Recipe> results = new ArrayList<>();
+            return scan(recipes, 0, size, predicate, caller, results) ? results : null;
+        }
+
+        int chunkCount = (size + chunkSize - 1) / chunkSize;
+        List<List<Recipe>> chunks = new ArrayList<>(Collections.nCopies(chunkCount, null));
+        pool.invoke(new ScanTask(recipes, predicate, caller, chunks, 0, chunkCount));
+        if (caller.isInterrupted()) return null;
+
+        int total = 0;
+        for (List<Recipe> chunk : chunks) {
+            total += chunk.size();
+        }
+        ArrayList<Recipe> results = new ArrayList<>(total);
+        for (List<Recipe> chunk : chunks) {
+            results.addAll(chunk);
+        }
+        return results;
+    }
+
+    // Returns false when it stopped early because the caller was interrupted
+    private static boolean scan(List<Recipe> recipes, int from, int to, Predicate<Recipe> predicate,
+                                Thread caller, List<Recipe> out) {
+        for (int i = from; i < to; i++) {
+            if ((i - from) % INTERRUPT_CHECK_INTERVAL == 0 && caller.isInterrupted()) {
+                return false;
+            }
+            Recipe recipe = recipes.get(i);
+            if (predicate.test(recipe)) {
+                out.add(recipe);
+            }
+        }
+        return true;
+    }
+
+    // Tasks only live for one invoke(), they are never serialized
+    @SuppressWarnings("serial")
+    private class ScanTask extends RecursiveAction {
+        private final List<Recipe> recipes;
+        private final Predicate<Recipe> predicate;
+        private final Thread caller;
+        private final List<List<Recipe>> chunks; // each task sets only its own slots
+        private final int fromChunk;
+        private final int toChunk;
+
+        ScanTask(List<Recipe> recipes, Predicate<Recipe> predicate, Thread caller,
+                 List<List<Recipe>> chunks, int fromChunk, int toChunk) {
+            this.recipes = recipes;
+            this.predicate = predicate;
+            this.caller = caller;
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int from = fromChunk * chunkSize;
+                int to = Math.min(from + chunkSize, recipes.size());
+                ArrayList<Recipe> out = new ArrayList<>();
+                scan(recipes, from, to, predicate, caller, out);
+                chunks.set(fromChunk, out);
+                return;
+            }
+            int mid = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ScanTask(recipes, predicate, caller, chunks, fromChunk, mid),
+                    new ScanTask(recipes, predicate, caller, chunks, mid, toChunk));
+        }
+    }
+}
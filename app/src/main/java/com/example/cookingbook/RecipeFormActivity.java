@@ -1,7 +1,6 @@
 package com.example.cookingbook;
 
 import android.Manifest;
-import android.animation.ArgbEvaluator;
 import android.animation.ValueAnimator;
 import android.app.Activity;
 import android.app.AlertDialog;
@@ -21,25 +20,29 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.cookingbook.databinding.ActivityRecipeFormBinding;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 
 public class RecipeFormActivity extends AppCompatActivity {
 
     private static final int IMAGE_PICK_CODE = 101;
     private static final int PERMISSION_CODE = 102;
+    public static final String EXTRA_RECIPE_ID = "recipe_id";
 
     private ActivityRecipeFormBinding binding;
     private Uri selectedImageUri;
-    private int editingPosition = -1;
-    private ArrayList<String> ingredients;
+    private long editingId = -1;
+    private final IngredientEditorAdapter ingredientEditor = new IngredientEditorAdapter();
 
     // Default gradient colors
     private int currentStartColor = 0xFFFF6B6B;
     private int currentEndColor = 0xFFFFD93D;
+    private GradientDrawable gradientBackground;
+    private final GradientTransition gradientTransition = new GradientTransition();
+    private ValueAnimator gradientAnimator;
+    private RecipeManager.LoadListener loadListener; // only while waiting for a restored form's load
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,9 +50,11 @@ public class RecipeFormActivity extends AppCompatActivity {
         binding = ActivityRecipeFormBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        ingredients = new ArrayList<>();
+        binding.ingredientsList.setLayoutManager(new LinearLayoutManager(this));
+        ingredientEditor.setTextColor(isColorDark(currentStartColor) ? 0xFFFFFFFF : 0xFF000000);
+        ingredientEditor.attachTo(binding.ingredientsList);
 
-        String[] categories = {"Appetizers", "Main Course", "Desserts", "Beverages", "Salads", "Other"};
+        String[] categories = RecipeCategory.labels();
         ArrayAdapter<String> categoryAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, categories);
         categoryAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         binding.categorySpinner.setAdapter(categoryAdapter);
@@ -57,55 +62,37 @@ public class RecipeFormActivity extends AppCompatActivity {
         // Set initial gradient
         applyGradient(currentStartColor, currentEndColor, false);
 
-        // Check if we're editing an existing recipe
-        if (getIntent().hasExtra("position")) {
-            editingPosition = getIntent().getIntExtra("position", -1);
-            Recipe recipe = RecipeManager.recipes.get(editingPosition);
-            binding.titleInput.setText(recipe.getTitle());
-            binding.descInput.setText(recipe.getDescription());
-
-            if (recipe.getImageUri() != null && !recipe.getImageUri().isEmpty()) {
-                selectedImageUri = Uri.parse(recipe.getImageUri());
-                binding.recipeImageView.setImageURI(selectedImageUri);
-
-                // Extract colors from the image and apply gradient
-                extractAndApplyColors(selectedImageUri);
-            }
-
-            // Set dietary filters
-            binding.vegetarianCheckbox.setChecked(recipe.isVegetarian());
-            binding.veganCheckbox.setChecked(recipe.isVegan());
-            binding.glutenFreeCheckbox.setChecked(recipe.isGlutenFree());
-            binding.meatCheckbox.setChecked(recipe.hasMeat());
-
-            // Set ingredients
-            if (recipe.getIngredients() != null) {
-                ingredients.addAll(recipe.getIngredients());
-                displayIngredients();
-            }
+        if (RecipeManager.isLoaded()) {
+            bindRecipe(savedInstanceState);
+        } else {
+            // Restored after the process was killed. Until the cookbook is loaded the recipe can't
+            // be found and a new one can't get a free id, so saving waits for it.
+            binding.saveBtn.setEnabled(false);
+            binding.deleteBtn.setVisibility(View.GONE);
+            loadListener = new RecipeManager.LoadListener() {
+                @Override
+                public void onCatalogMapped(MappedRecipeCatalog catalog) {
+                }
 
-            // Set the current category for editing
-            String currentCategory = recipe.getCategory();
-            if (currentCategory != null) {
-                int categoryPosition = Arrays.asList(categories).indexOf(currentCategory);
-                if (categoryPosition >= 0) {
-                    binding.categorySpinner.setSelection(categoryPosition);
+                @Override
+                public void onRecipesAppended(int start, int count) {
                 }
-            }
 
-            // Show delete button only when editing
-            binding.deleteBtn.setVisibility(View.VISIBLE);
-        } else {
-            // Hide delete button when adding new recipe
-            binding.deleteBtn.setVisibility(View.GONE);
+                @Override
+                public void onLoadFinished() {
+                    if (isDestroyed()) return;
+                    bindRecipe(savedInstanceState);
+                    binding.saveBtn.setEnabled(true);
+                }
+            };
+            RecipeManager.loadRecipes(this, loadListener);
         }
 
         binding.addIngredientBtn.setOnClickListener(v -> {
             String ingredient = binding.ingredientInput.getText().toString().trim();
             if (!ingredient.isEmpty()) {
-                ingredients.add(ingredient);
+                ingredientEditor.add(ingredient);
                 binding.ingredientInput.setText("");
-                displayIngredients();
             } else {
                 Toast.makeText(this, "Please enter an ingredient", Toast.LENGTH_SHORT).show();
             }
@@ -126,25 +113,24 @@ public class RecipeFormActivity extends AppCompatActivity {
             String title = binding.titleInput.getText().toString().trim();
             String desc = binding.descInput.getText().toString().trim();
             String img = selectedImageUri != null ? selectedImageUri.toString() : null;
-            String category = binding.categorySpinner.getSelectedItem().toString();
+            RecipeCategory category = RecipeCategory.values()[binding.categorySpinner.getSelectedItemPosition()];
 
             if (title.isEmpty()) {
                 Toast.makeText(this, "Please enter a recipe title", Toast.LENGTH_SHORT).show();
                 return;
             }
 
-            Recipe r = new Recipe(title, desc, img, category, ingredients,
+            Recipe r = new Recipe(title, desc, img, category, ingredientEditor.getIngredients(),
                     binding.vegetarianCheckbox.isChecked(),
                     binding.veganCheckbox.isChecked(),
                     binding.glutenFreeCheckbox.isChecked(),
                     binding.meatCheckbox.isChecked());
 
-            if (editingPosition == -1)
-                RecipeManager.recipes.add(r);
+            if (editingId == -1)
+                RecipeManager.addRecipe(this, r);
             else
-                RecipeManager.recipes.set(editingPosition, r);
+                RecipeManager.updateRecipe(this, editingId, r);
 
-            RecipeManager.saveRecipes(this);
             finish();
         });
 
@@ -152,18 +138,63 @@ public class RecipeFormActivity extends AppCompatActivity {
                 .setTitle(getString(R.string.delete_confirmation_title))
                 .setMessage(getString(R.string.delete_confirmation_message))
                 .setPositiveButton(getString(R.string.delete), (dialog, which) -> {
-                    RecipeManager.recipes.remove(editingPosition);
-                    RecipeManager.saveRecipes(this);
+                    RecipeManager.removeRecipe(this, editingId);
                     finish();
                 })
                 .setNegativeButton(getString(R.string.cancel), null)
                 .show());
     }
 
+    // Fills the form from the recipe being edited, if any. Fields whose state the framework
+    // brought back after a restore keep what the user had typed.
+    private void bindRecipe(@Nullable Bundle restored) {
+        Recipe recipe = RecipeManager.getRecipe(getIntent().getLongExtra(EXTRA_RECIPE_ID, -1));
+        if (recipe != null) {
+            editingId = recipe.getId();
+            if (restored == null) {
+                binding.titleInput.setText(recipe.getTitle());
+                binding.descInput.setText(recipe.getDescription());
+            }
+
+            // An image picked while the load was running wins over the stored one
+            if (selectedImageUri == null && recipe.getImageUri() != null && !recipe.getImageUri().isEmpty()) {
+                selectedImageUri = Uri.parse(recipe.getImageUri());
+                binding.recipeImageView.setImageURI(selectedImageUri);
+
+                // Extract colors from the image and apply gradient
+                extractAndApplyColors(selectedImageUri);
+            }
+
+            // Set dietary filters
+            if (restored == null) {
+                binding.vegetarianCheckbox.setChecked(recipe.isVegetarian());
+                binding.veganCheckbox.setChecked(recipe.isVegan());
+                binding.glutenFreeCheckbox.setChecked(recipe.isGlutenFree());
+                binding.meatCheckbox.setChecked(recipe.hasMeat());
+            }
+
+            // Set ingredients
+            if (recipe.getIngredients() != null) {
+                ingredientEditor.setIngredients(recipe.getIngredients());
+            }
+
+            // Set the current category for editing
+            if (restored == null) {
+                binding.categorySpinner.setSelection(recipe.getCategory().ordinal());
+            }
+
+            // Show delete button only when editing
+            binding.deleteBtn.setVisibility(View.VISIBLE);
+        } else {
+            // Hide delete button when adding new recipe
+            binding.deleteBtn.setVisibility(View.GONE);
+        }
+    }
+
     private void extractAndApplyColors(Uri imageUri) {
-        ColorUtils.extractColorsFromImage(this, imageUri, (startColor, endColor) -> {
-            // Apply the gradient with animation
-            applyGradient(startColor, endColor, true);
+        ColorUtils.extractColorsFromImage(this, imageUri, (startColor, endColor, fromCache) -> {
+            // Animate only when the colors show up after the screen did, cached ones apply as it opens
+            applyGradient(startColor, endColor, !fromCache);
 
             // Adjust text colors based on background brightness
             adjustTextColors(startColor);
@@ -209,7 +240,7 @@ public class RecipeFormActivity extends AppCompatActivity {
         updateButtonColors(binding.deleteBtn, textColor, backgroundColor);
 
         // Apply to ingredients list
-        updateIngredientsTextColor(textColor);
+        ingredientEditor.setTextColor(textColor);
     }
 
     private void updateTextInputLayoutColors(com.google.android.material.textfield.TextInputLayout layout, int textColor, int hintColor) {
@@ -243,7 +274,7 @@ public class RecipeFormActivity extends AppCompatActivity {
                 ArrayAdapter<String> newAdapter = new ArrayAdapter<String>(
                         this,
                         android.R.layout.simple_spinner_item,
-                        new String[]{"Appetizers", "Main Course", "Desserts", "Beverages", "Salads", "Other"}) {
+                        RecipeCategory.labels()) {
                     @Override
                     public View getView(int position, View convertView, android.view.ViewGroup parent) {
                         View view = super.getView(position, convertView, parent);
@@ -353,35 +384,26 @@ public class RecipeFormActivity extends AppCompatActivity {
         return brightness < 128;
     }
 
-    private void updateIngredientsTextColor(int textColor) {
-        for (int i = 0; i < binding.ingredientsList.getChildCount(); i++) {
-            View child = binding.ingredientsList.getChildAt(i);
-            if (child instanceof LinearLayout) {
-                LinearLayout row = (LinearLayout) child;
-                if (row.getChildCount() > 0 && row.getChildAt(0) instanceof TextView) {
-                    TextView ingredientText = (TextView) row.getChildAt(0);
-                    ingredientText.setTextColor(textColor);
-                }
-                // Update remove button color
-                if (row.getChildCount() > 1 && row.getChildAt(1) instanceof Button) {
-                    Button removeBtn = (Button) row.getChildAt(1);
-                    removeBtn.setTextColor(textColor);
-                }
-            }
-        }
-    }
-
     private void applyGradient(int startColor, int endColor, boolean animate) {
-        GradientDrawable newGradient = new GradientDrawable(
-                GradientDrawable.Orientation.TOP_BOTTOM,
-                new int[]{startColor, endColor}
-        );
+        if (gradientBackground == null) {
+            // One drawable for the life of the screen, color changes only invalidate it
+            gradientBackground = new GradientDrawable(GradientDrawable.Orientation.TOP_BOTTOM,
+                    new int[]{startColor, endColor});
+            binding.dynamicGradientBackground.setBackground(gradientBackground);
+        }
 
         if (animate) {
-            // Animate from current colors to new colors
-            animateGradientChange(currentStartColor, currentEndColor, startColor, endColor);
+            // Animate from the colors on screen to the new ones
+            int[] shown = gradientAnimator != null && gradientAnimator.isRunning()
+                    ? gradientTransition.colorsAt(gradientAnimator.getAnimatedFraction())
+                    : gradientTransition.colorsAt(1f);
+            animateGradientChange(shown[0], shown[1], startColor, endColor);
         } else {
-            binding.dynamicGradientBackground.setBackground(newGradient);
+            if (gradientAnimator != null) {
+                gradientAnimator.cancel();
+            }
+            gradientTransition.set(startColor, endColor, startColor, endColor);
+            gradientBackground.setColors(gradientTransition.colorsAt(1f));
         }
 
         currentStartColor = startColor;
@@ -389,65 +411,17 @@ public class RecipeFormActivity extends AppCompatActivity {
     }
 
     private void animateGradientChange(int fromStart, int fromEnd, int toStart, int toEnd) {
-        ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
-        animator.setDuration(500);
-
-        animator.addUpdateListener(animation -> {
-            float fraction = animation.getAnimatedFraction();
-            ArgbEvaluator evaluator = new ArgbEvaluator();
-
-            int currentStart = (int) evaluator.evaluate(fraction, fromStart, toStart);
-            int currentEnd = (int) evaluator.evaluate(fraction, fromEnd, toEnd);
-
-            GradientDrawable gradient = new GradientDrawable(
-                    GradientDrawable.Orientation.TOP_BOTTOM,
-                    new int[]{currentStart, currentEnd}
-            );
-
-            binding.dynamicGradientBackground.setBackground(gradient);
-        });
-
-        animator.start();
-    }
-
-    private void displayIngredients() {
-        binding.ingredientsList.removeAllViews();
-
-        // Determine current text color based on background
-        int textColor = isColorDark(currentStartColor) ? 0xFFFFFFFF : 0xFF000000;
-
-        for (int i = 0; i < ingredients.size(); i++) {
-            String ingredient = ingredients.get(i);
-            LinearLayout ingredientRow = new LinearLayout(this);
-            ingredientRow.setOrientation(LinearLayout.HORIZONTAL);
-            ingredientRow.setLayoutParams(new LinearLayout.LayoutParams(
-                    LinearLayout.LayoutParams.MATCH_PARENT,
-                    LinearLayout.LayoutParams.WRAP_CONTENT));
-            ingredientRow.setPadding(0, 8, 0, 8);
-
-            TextView ingredientText = new TextView(this);
-            ingredientText.setText("• " + ingredient);
-            ingredientText.setLayoutParams(new LinearLayout.LayoutParams(
-                    0, LinearLayout.LayoutParams.WRAP_CONTENT, 1f));
-            ingredientText.setTextSize(16);
-            ingredientText.setTextColor(textColor);
-
-            Button removeBtn = new Button(this);
-            removeBtn.setText("Remove");
-            removeBtn.setTextColor(textColor);
-            removeBtn.setLayoutParams(new LinearLayout.LayoutParams(
-                    LinearLayout.LayoutParams.WRAP_CONTENT,
-                    LinearLayout.LayoutParams.WRAP_CONTENT));
-            final int index = i;
-            removeBtn.setOnClickListener(v -> {
-                ingredients.remove(index);
-                displayIngredients();
-            });
-
-            ingredientRow.addView(ingredientText);
-            ingredientRow.addView(removeBtn);
-            binding.ingredientsList.addView(ingredientRow);
+        if (gradientAnimator == null) {
+            gradientAnimator = ValueAnimator.ofFloat(0f, 1f);
+            gradientAnimator.setDuration(500);
+            // Mixes into the transition's array and hands the drawable that same array, so a
+            // frame allocates nothing and doesn't relayout the background view
+            gradientAnimator.addUpdateListener(animation ->
+                    gradientBackground.setColors(gradientTransition.colorsAt(animation.getAnimatedFraction())));
         }
+        gradientAnimator.cancel();
+        gradientTransition.set(fromStart, fromEnd, toStart, toEnd);
+        gradientAnimator.start();
     }
 
     private void pickImageFromGallery() {
@@ -480,4 +454,10 @@ public class RecipeFormActivity extends AppCompatActivity {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        RecipeManager.removeLoadListener(loadListener);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.cookingbook;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Glide requests for the recipe rows. Binding and prefetching build their requests here, so a
+// prefetched image is found in the memory cache under the same key when its row is bound.
+public class RecipeImageLoader {
+
+    // Rows ahead of the last visible one to fetch images for, about two screens of full rows
+    public static final int DEFAULT_PREFETCH_DEPTH = 6;
+
+    // Built once, every bind reuses them
+    private static final RequestOptions COMPACT_OPTIONS = new RequestOptions()
+            .placeholder(R.drawable.placeholder)
+            .error(R.drawable.placeholder)
+            .centerCrop()
+            .diskCacheStrategy(DiskCacheStrategy.ALL);
+    private static final RequestOptions FULL_OPTIONS = new RequestOptions()
+            .placeholder(R.drawable.placeholder)
+            .error(R.drawable.placeholder)
+            .fitCenter()
+            .diskCacheStrategy(DiskCacheStrategy.ALL)
+            .dontTransform();
+    // Thumbnails are already small, caching another copy on disk would only cost space
+    private static final RequestOptions COMPACT_THUMBNAIL_OPTIONS = COMPACT_OPTIONS.clone()
+            .diskCacheStrategy(DiskCacheStrategy.NONE);
+    private static final RequestOptions FULL_THUMBNAIL_OPTIONS = FULL_OPTIONS.clone()
+            .diskCacheStrategy(DiskCacheStrategy.NONE);
+
+    private final Context context;
+    private final RequestManager glide;
+    private final RecipeRowSource rows;
+    // Each measures the first image view of its row type, prefetches are decoded at that size
+    private final ViewPreloadSizeProvider<Recipe> compactSizes = new ViewPreloadSizeProvider<>();
+    private final ViewPreloadSizeProvider<Recipe> fullSizes = new ViewPreloadSizeProvider<>();
+    private RecyclerViewPreloader<Recipe> preloader;
+    private RecyclerView attachedTo;
+
+    // Models prefetched lately, a bind of one of them is a hit if it comes from memory
+    private final Map<Object, Boolean> prefetched = new LinkedHashMap<Object, Boolean>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+            return size() > 256;
+        }
+    };
+    private int prefetchesIssued;
+    private int prefetchHits;
+    private int prefetchMisses;
+
+    private final RequestListener<Drawable> bindListener = new RequestListener<Drawable>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                    @NonNull Target<Drawable> target, boolean isFirstResource) {
+            if (model != null && prefetched.remove(model) != null) {
+                prefetchMisses++;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model, Target<Drawable> target,
+                                       @NonNull DataSource dataSource, boolean isFirstResource) {
+            if (prefetched.remove(model) != null) {
+                if (dataSource == DataSource.MEMORY_CACHE) {
+                    prefetchHits++;
+                } else {
+                    prefetchMisses++;
+                }
+            }
+            return false;
+        }
+    };
+
+    public RecipeImageLoader(Context context, RecipeRowSource rows) {
+        this.context = context;
+        this.glide = Glide.with(context);
+        this.rows = rows;
+    }
+
+    // Starts prefetching images for the next depth rows in the scroll direction, replacing a
+    // previous depth
+    public void attach(RecyclerView recyclerView, int depth) {
+        detach();
+        preloader = new RecyclerViewPreloader<>(glide, new ListPreloader.PreloadModelProvider<Recipe>() {
+            @NonNull
+            @Override
+            public List<Recipe> getPreloadItems(int position) {
+                if (position >= rows.getItemCount()) return Collections.emptyList();
+                Recipe recipe = rows.getRecipe(position);
+                if (recipe.getImageUri() == null || recipe.getImageUri().isEmpty()) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(recipe);
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Recipe recipe) {
+                prefetchesIssued++;
+                Object model = model(recipe, rows.isCompactMode());
+                prefetched.put(model, Boolean.TRUE);
+                return request(model, rows.isCompactMode());
+            }
+        }, (recipe, adapterPosition, perItemPosition) -> rows.isCompactMode()
+                ? compactSizes.getPreloadSize(recipe, adapterPosition, perItemPosition)
+                : fullSizes.getPreloadSize(recipe, adapterPosition, perItemPosition), depth);
+        attachedTo = recyclerView;
+        recyclerView.addOnScrollListener(preloader);
+    }
+
+    public void detach() {
+        if (attachedTo != null) {
+            attachedTo.removeOnScrollListener(preloader);
+            attachedTo = null;
+            preloader = null;
+        }
+    }
+
+    // Called once per created view holder, the size providers keep the first view they get
+    public void measure(ImageView image, boolean compact) {
+        (compact ? compactSizes : fullSizes).setView(image);
+    }
+
+    public void load(Recipe recipe, boolean compact, ImageView into) {
+        request(model(recipe, compact), compact)
+                .listener(bindListener)
+                .into(into);
+    }
+
+    public void clear(ImageView image) {
+        glide.clear(image);
+    }
+
+    // The share of prefetched rows whose image was already in memory when the row was bound
+    public String getMetrics() {
+        int bound = prefetchHits + prefetchMisses;
+        return "prefetches=" + prefetchesIssued + ", hits=" + prefetchHits + ", misses=" + prefetchMisses
+                + ", hitRate=" + (bound > 0 ? Math.round(prefetchHits * 100f / bound) + "%" : "n/a");
+    }
+
+    private Object model(Recipe recipe, boolean compact) {
+        File thumbnail = RecipeThumbnails.get(context, recipe,
+                compact ? RecipeThumbnails.Size.COMPACT : RecipeThumbnails.Size.FULL);
+        if (thumbnail != null) return thumbnail;
+        if (recipe.getImageUri() != null && !recipe.getImageUri().isEmpty()) {
+            return Uri.parse(recipe.getImageUri());
+        }
+        return R.drawable.placeholder;
+    }
+
+    private RequestBuilder<Drawable> request(Object model, boolean compact) {
+        RequestOptions options = model instanceof File
+                ? compact ? COMPACT_THUMBNAIL_OPTIONS : FULL_THUMBNAIL_OPTIONS
+                : compact ? COMPACT_OPTIONS : FULL_OPTIONS;
+        return glide.load(model).apply(options);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+// Posting lists from ingredient keys (see SearchNormalizer.ingredientKey) to recipe ids, for
+// "cook with what I have" queries. A query walks the lists of the pantry's ingredients once,
+// counting hits per recipe, and compares the count against how many ingredients each recipe needs.
+public class RecipeIngredientIndex {
+
+    private final HashMap<String, PostingList> postings = new HashMap<>();
+    private final HashMap<Long, String[]> keysById = new HashMap<>();
+    // Distinct ingredients per recipe, addressed by id like the facet bit sets
+    private int[] required = new int[16];
+
+    public synchronized void add(Recipe recipe) {
+        long id = recipe.getId();
+        String[] keys = recipe.getIngredientKeys();
+        keysById.put(id, keys);
+        for (String key : keys) {
+            PostingList list = postings.get(key);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(key, list);
+            }
+            list.add(id);
+        }
+
+        int slot = slotOf(id);
+        if (slot >= required.length) {
+            required = Arrays.copyOf(required, Math.max(slot + 1, required.length * 2));
+        }
+        required[slot] = keys.length;
+    }
+
+    public synchronized void remove(long id) {
+        String[] keys = keysById.remove(id);
+        if (keys == null) return;
+        for (String key : keys) {
+            PostingList list = postings.get(key);
+            if (list != null && list.remove(id) && list.size() == 0) {
+                postings.remove(key);
+            }
+        }
+        required[slotOf(id)] = 0;
+    }
+
+    public synchronized void update(Recipe recipe) {
+        remove(recipe.getId());
+        add(recipe);
+    }
+
+    public synchronized int size() {
+        return keysById.size();
+    }
+
+    // Recipes sharing at least one ingredient with the pantry and missing at most maxMissing of
+    // theirs, fewest missing first and by id within the same count
+    public synchronized List<Match> query(Collection<String> pantry, int maxMissing) {
+        if (maxMissing < 0) {
+            throw new IllegalArgumentException("maxMissing must not be negative: " + maxMissing);
+        }
+        LinkedHashSet<PostingList> lists = new LinkedHashSet<>();
+        for (String item : pantry) {
+            PostingList list = postings.get(SearchNormalizer.ingredientKey(item));
+            if (list != null) lists.add(list);
+        }
+        if (lists.isEmpty()) return new ArrayList<>();
+
+        // Count hits in a dense array, remembering which ids were touched so that only those
+        // get visited afterwards
+        int[] hits = new int[required.length];
+        long[] touched = new long[64];
+        int touchedCount = 0;
+        for (PostingList list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                long id = list.get(i);
+                if (hits[(int) id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        // Bucket by missing count, ids are sorted within each bucket at the end
+        int limit = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            limit = Math.max(limit, required[(int) touched[i]] - hits[(int) touched[i]]);
+        }
+        limit = Math.min(limit, maxMissing);
+        long[][] buckets = new long[limit + 1][];
+        int[] bucketSizes = new int[limit + 1];
+        for (int i = 0; i < touchedCount; i++) {
+            long id = touched[i];
+            int missing = required[(int) id] - hits[(int) id];
+            if (missing > limit) continue;
+            if (buckets[missing] == null) {
+                buckets[missing] = new long[16];
+            } else if (bucketSizes[missing] == buckets[missing].length) {
+                buckets[missing] = Arrays.copyOf(buckets[missing], bucketSizes[missing] * 2);
+            }
+            buckets[missing][bucketSizes[missing]++] = id;
+        }
+
+        ArrayList<Match> matches = new ArrayList<>();
+        for (int missing = 0; missing <= limit; missing++) {
+            if (buckets[missing] == null) continue;
+            Arrays.sort(buckets[missing], 0, bucketSizes[missing]);
+            for (int i = 0; i < bucketSizes[missing]; i++) {
+                long id = buckets[missing][i];
+                matches.add(new Match(id, hits[(int) id], missing));
+            }
+        }
+        return matches;
+    }
+
+    private static int slotOf(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recipe id out of range: " + id);
+        }
+        return (int) id;
+    }
+
+    public static class Match {
+        public final long id;
+        public final int matched;
+        public final int missing;
+
+        Match(long id, int matched, int missing) {
+            this.id = id;
+            this.matched = matched;
+            this.missing = missing;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.cookingbook;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only log of recipe mutations on top of a periodically compacted snapshot.
+// Every add/edit/delete costs one small JSON line instead of rewriting the whole list,
+// the snapshot itself is stored in the RecipeBinaryWriter format.
+public class RecipeJournal {
+
+    // Records address recipes by id, replaying a put replaces the recipe in place or appends it
+    static final String OP_PUT = "put";
+    static final String OP_DELETE = "delete";
+
+    // Positional records written by earlier builds, still replayed
+    static final String OP_ADD = "add";
+    static final String OP_SET = "set";
+    static final String OP_REMOVE = "remove";
+
+    private static final String SNAPSHOT_FILE = "recipes.snapshot";
+    private static final String JOURNAL_FILE = "recipes.journal";
+
+    static class Entry {
+        String op;
+        long id;
+        Integer position;
+        Recipe recipe;
+
+        Entry() {
+            // Needed for Gson
+        }
+
+        Entry(String op, long id, Recipe recipe) {
+            this.op = op;
+            this.id = id;
+            this.recipe = recipe;
+        }
+    }
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final Gson gson = new Gson();
+    private int journalEntries;
+
+    public RecipeJournal(File dir) {
+        this.snapshotFile = new File(dir, SNAPSHOT_FILE);
+        this.journalFile = new File(dir, JOURNAL_FILE);
+    }
+
+    public boolean exists() {
+        return snapshotFile.exists() || journalFile.exists();
+    }
+
+    public boolean hasJournal() {
+        return journalFile.exists() && journalFile.length() > 0;
+    }
+
+    // Maps the snapshot for random access, null when it is still in an older format
+    public MappedRecipeCatalog openCatalog() throws IOException {
+        return MappedRecipeCatalog.open(snapshotFile);
+    }
+
+    public int getJournalEntries() {
+        return journalEntries;
+    }
+
+    public interface RecipeSink {
+        void accept(Recipe recipe);
+    }
+
+    // True when the snapshot is in the RecipeBinaryWriter format, whose string table already
+    // hands out one instance per distinct string
+    public boolean hasBinarySnapshot() throws IOException {
+        if (!snapshotFile.exists()) return false;
+        try (InputStream in = new FileInputStream(snapshotFile)) {
+            byte[] header = new byte[RecipeBinaryWriter.MAGIC.length];
+            return in.read(header) == header.length && RecipeBinaryReader.hasMagic(header);
+        }
+    }
+
+    // Streams the snapshot one recipe at a time instead of materializing the whole document.
+    // Snapshots written before the binary format are still read as a JSON array.
+    public void readSnapshot(RecipeSink sink) throws IOException {
+        if (!snapshotFile.exists()) return;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(snapshotFile))) {
+            byte[] header = new byte[RecipeBinaryWriter.MAGIC.length];
+            in.mark(header.length);
+            int read = in.read(header);
+            in.reset();
+            if (read == header.length && RecipeBinaryReader.hasMagic(header)) {
+                new RecipeBinaryReader(in).read(sink);
+            } else {
+                readJsonSnapshot(in, sink);
+            }
+        }
+    }
+
+    private void readJsonSnapshot(InputStream in, RecipeSink sink) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Recipe recipe = gson.fromJson(reader, Recipe.class);
+            if (recipe != null) {
+                sink.accept(recipe);
+            }
+        }
+        reader.endArray();
+    }
+
+    // Applies the journal on top of a loaded snapshot, returns the number of records replayed.
+    // Each recipe a record brings in goes through sink first. A torn tail left by a crash
+    // mid-append is cut off here, otherwise the next append would land on the same broken line.
+    // An unreadable line followed by more records is skipped and left in place.
+    public int replayJournal(List<Recipe> recipes, RecipeSink sink) throws IOException {
+        journalEntries = 0;
+        if (!journalFile.exists()) return 0;
+        // Compaction keeps the journal to a few hundred records, it is read in one go
+        byte[] bytes = Files.readAllBytes(journalFile.toPath());
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') end++;
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            Entry entry = null;
+            if (!line.isEmpty()) {
+                try {
+                    entry = gson.fromJson(line, Entry.class);
+                } catch (JsonParseException e) {
+                    if (isBlank(bytes, end)) {
+                        // A torn last line, everything before it is intact
+                        truncate(start);
+                        break;
+                    }
+                    // Damage in the middle, the records after it are still good
+                    e.printStackTrace();
+                    start = end + 1;
+                    continue;
+                }
+            }
+            if (end == bytes.length) {
+                // The record made it but its newline did not, the next append starts a new line
+                try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+                    out.write('\n');
+                    out.getFD().sync();
+                }
+            }
+            if (entry != null) {
+                if (entry.recipe != null) {
+                    sink.accept(entry.recipe);
+                }
+                apply(recipes, entry);
+                journalEntries++;
+            }
+            start = end + 1;
+        }
+        return journalEntries;
+    }
+
+    private static boolean isBlank(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (!Character.isWhitespace(bytes[i])) return false;
+        }
+        return true;
+    }
+
+    private void truncate(long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.setLength(length);
+            file.getFD().sync();
+        }
+    }
+
+    static void apply(List<Recipe> recipes, Entry entry) {
+        if (entry == null || entry.op == null) return;
+        switch (entry.op) {
+            case OP_PUT: {
+                int position = indexOfId(recipes, entry.id);
+                if (position >= 0) {
+                    recipes.set(position, entry.recipe);
+                } else {
+                    recipes.add(entry.recipe);
+                }
+                break;
+            }
+            case OP_DELETE: {
+                int position = indexOfId(recipes, entry.id);
+                if (position >= 0) {
+                    recipes.remove(position);
+                }
+                break;
+            }
+            case OP_ADD:
+                recipes.add(entry.recipe);
+                break;
+            case OP_SET:
+                if (entry.position != null && entry.position >= 0 && entry.position < recipes.size()) {
+                    recipes.set(entry.position, entry.recipe);
+                }
+                break;
+            case OP_REMOVE:
+                if (entry.position != null && entry.position >= 0 && entry.position < recipes.size()) {
+                    recipes.remove((int) entry.position);
+                }
+                break;
+        }
+    }
+
+    // Replay only touches the few hundred records since the last compaction, a scan is enough here
+    private static int indexOfId(List<Recipe> recipes, long id) {
+        for (int i = recipes.size() - 1; i >= 0; i--) {
+            if (recipes.get(i).getId() == id) return i;
+        }
+        return -1;
+    }
+
+    public String encode(Entry entry) {
+        return gson.toJson(entry);
+    }
+
+    // Appends a batch of encoded records with a single write and a single sync
+    public void append(List<String> encodedEntries) throws IOException {
+        StringBuilder batch = new StringBuilder();
+        for (String entry : encodedEntries) {
+            batch.append(entry).append('\n');
+        }
+        try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+            out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        journalEntries += encodedEntries.size();
+    }
+
+    // Writes the whole list older versions kept as one JSON string in SharedPreferences as the
+    // first snapshot
+    public void migrate(String legacyJson) throws IOException {
+        Type type = new TypeToken<ArrayList<Recipe>>() {}.getType();
+        ArrayList<Recipe> legacy = gson.fromJson(legacyJson, type);
+        compact(legacy != null ? legacy : new ArrayList<>());
+    }
+
+    // Rewrites the snapshot from the given list and starts an empty journal.
+    // The new snapshot is renamed into place so a crash never leaves a half-written file behind.
+    public void compact(List<Recipe> recipes) throws IOException {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            new RecipeBinaryWriter(out).write(recipes);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(snapshotFile)) {
+            throw new IOException("Unable to replace " + snapshotFile);
+        }
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new IOException("Unable to truncate " + journalFile);
+        }
+        journalEntries = 0;
+    }
+}
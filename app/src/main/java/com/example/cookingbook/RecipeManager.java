@@ -1,41 +1,431 @@
 package com.example.cookingbook;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.SharedPreferences;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class RecipeManager {
-    public static ArrayList<Recipe> recipes = new ArrayList<>();
+    private static final ArrayList<Recipe> recipes = new ArrayList<>();
+    // Read-only copy of recipes for other threads, rebuilt on the first request after a change
+    private static List<Recipe> snapshot;
+    private static final HashMap<Long, Recipe> recipesById = new HashMap<>();
+    private static long nextId = 1;
     private static final String PREFS_NAME = "cooking_book_prefs";
     private static final String RECIPES_KEY = "recipes";
+    // Highest id handed out so far plus one, so ids of deleted recipes are never reused
+    private static final String NEXT_ID_KEY = "next_id";
+    private static final String TAG = "RecipeManager";
 
-    public static void loadRecipes(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String json = prefs.getString(RECIPES_KEY, null);
+    // Number of journal records after which the log is folded back into the snapshot
+    private static final int COMPACTION_THRESHOLD = 256;
+
+    // All file I/O runs on the scheduler's writer thread, so appends and compactions never interleave
+    private static final SaveScheduler saveScheduler =
+            new SaveScheduler(RecipeManager::writePending, SaveScheduler.DEFAULT_WINDOW_MS);
+    private static RecipeJournal journal;
+    private static int uncompactedEntries;
+
+    // Work handed to the writer thread, guarded by pendingLock
+    private static final Object pendingLock = new Object();
+    private static ArrayList<String> pendingEntries = new ArrayList<>();
+    private static List<Recipe> pendingSnapshot;
+
+    // Roughly one screenful, then doubling so re-filtering stays cheap on large cookbooks
+    private static final int FIRST_BATCH_SIZE = 20;
+    private static final int MAX_BATCH_SIZE = 2048;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static LoadListener loadListener;
+    private static boolean loading;
+    private static boolean loaded;
+    private static long timeToFirstRecipeMs = -1;
+    private static MappedRecipeCatalog catalog;
+    // Built alongside the list on the loader thread, null until loading finished
+    private static RecipeSearchIndex searchIndex;
+    private static RecipeFacetIndex facetIndex;
+    private static RecipeIngredientIndex ingredientIndex;
+
+    private static synchronized RecipeJournal getJournal(Context context) {
+        if (journal == null) {
+            Context appContext = context.getApplicationContext();
+            journal = new RecipeJournal(appContext.getFilesDir());
+            appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+                @Override
+                public void onTrimMemory(int level) {
+                    // The app left the foreground, don't leave edits waiting for the window to close
+                    if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                        saveScheduler.flushAsync();
+                    }
+                }
+
+                @Override
+                public void onConfigurationChanged(@NonNull Configuration newConfig) {
+                }
+
+                @Override
+                public void onLowMemory() {
+                }
+            });
+        }
+        return journal;
+    }
+
+    public interface LoadListener {
+        // Called on the main thread when the snapshot can be shown straight from the mapped file,
+        // before any recipe has been parsed into the heap
+        void onCatalogMapped(MappedRecipeCatalog catalog);
+
+        // Called on the main thread after recipes.subList(start, start + count) was appended
+        void onRecipesAppended(int start, int count);
+
+        // Called on the main thread once the whole cookbook is in memory
+        void onLoadFinished();
+    }
+
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    public static long getTimeToFirstRecipeMs() {
+        return timeToFirstRecipeMs;
+    }
+
+    public static MappedRecipeCatalog getCatalog() {
+        return catalog;
+    }
 
-        if (json != null) {
+    public static void setLoadListener(LoadListener listener) {
+        loadListener = listener;
+    }
+
+    // Clears the listener if it is still the given one
+    public static void removeLoadListener(LoadListener listener) {
+        if (loadListener == listener) {
+            loadListener = null;
+        }
+    }
+
+    // Parses the snapshot on a background thread and publishes it to the main thread in growing
+    // batches, so the first screenful shows up long before a large cookbook is fully read.
+    public static void loadRecipes(Context context, LoadListener listener) {
+        loadListener = listener;
+        if (loaded) {
+            listener.onLoadFinished();
+            return;
+        }
+        if (loading) return;
+        loading = true;
+
+        Context appContext = context.getApplicationContext();
+        RecipeJournal store = getJournal(appContext);
+        long startTime = SystemClock.elapsedRealtime();
+        saveScheduler.execute(() -> {
+            ArrayList<Recipe> all = new ArrayList<>();
+            ArrayList<Recipe> batch = new ArrayList<>();
+            int[] batchSize = {FIRST_BATCH_SIZE};
+            // Recipes saved before ids existed get theirs once everything is read, so they are held
+            // back until then instead of being renumbered after the main thread has them
+            boolean[] missingIds = {false};
+            int replayed = 0;
+            // Shares repeated ingredient strings across the recipes decoded from JSON, the journal
+            // and snapshots older than the binary format. A binary snapshot shares them through
+            // its string table already. Categories are enum constants.
+            StringDictionary dictionary = new StringDictionary();
             try {
-                Gson gson = new Gson();
-                Type type = new TypeToken<ArrayList<Recipe>>() {}.getType();
-                recipes = gson.fromJson(json, type);
+                if (!store.exists()) {
+                    migrateFromPreferences(appContext, store);
+                }
+                // With an empty journal the mapped snapshot is exactly what the list will contain,
+                // so the screen can be filled from it while the heap copy is built behind it
+                MappedRecipeCatalog mapped = store.hasJournal() ? null : store.openCatalog();
+                if (mapped != null) {
+                    batchSize[0] = Integer.MAX_VALUE;
+                    mainHandler.post(() -> {
+                        catalog = mapped;
+                        if (mapped.size() > 0) {
+                            recordTimeToFirstRecipe(startTime);
+                        }
+                        if (loadListener != null) {
+                            loadListener.onCatalogMapped(mapped);
+                        }
+                    });
+                }
+                boolean sharedStrings = store.hasBinarySnapshot();
+                store.readSnapshot(recipe -> {
+                    if (!sharedStrings) {
+                        recipe.internStrings(dictionary);
+                    }
+                    all.add(recipe);
+                    batch.add(recipe);
+                    if (recipe.getId() == 0) {
+                        missingIds[0] = true;
+                    }
+                    if (!missingIds[0] && batch.size() >= batchSize[0]) {
+                        publishBatch(new ArrayList<>(batch), startTime);
+                        batch.clear();
+                        batchSize[0] = Math.min(batchSize[0] * 2, MAX_BATCH_SIZE);
+                    }
+                });
+                replayed = store.replayJournal(all, recipe -> recipe.internStrings(dictionary));
             } catch (Exception e) {
                 e.printStackTrace(); // Logs to Logcat
-                recipes = new ArrayList<>(); // fallback
+            }
+            Log.i(TAG, "Ingredient dictionary: " + dictionary.size() + " distinct strings, "
+                    + dictionary.getDuplicatesRemoved() + " duplicates dropped");
+
+            // Recipes saved before ids existed get them here, in list order. None of them has been
+            // published yet, they are all still in batch or only in the replayed list.
+            long maxId = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                    .getLong(NEXT_ID_KEY, 1) - 1;
+            for (Recipe recipe : all) {
+                maxId = Math.max(maxId, recipe.getId());
+            }
+            boolean assignedIds = false;
+            HashMap<Long, Recipe> index = new HashMap<>(all.size() * 2);
+            for (Recipe recipe : all) {
+                if (recipe.getId() == 0) {
+                    recipe.setId(++maxId);
+                    assignedIds = true;
+                }
+                index.put(recipe.getId(), recipe);
+            }
+            RecipeSearchIndex words = new RecipeSearchIndex();
+            RecipeFacetIndex facets = new RecipeFacetIndex();
+            RecipeIngredientIndex pantry = new RecipeIngredientIndex();
+            for (Recipe recipe : all) {
+                words.add(recipe);
+                facets.add(recipe);
+                pantry.add(recipe);
+            }
+
+            ArrayList<Recipe> rest = new ArrayList<>(batch);
+            int journalEntries = replayed;
+            long firstFreeId = maxId + 1;
+            boolean persistIds = assignedIds;
+            mainHandler.post(() -> {
+                if (journalEntries > 0) {
+                    // The journal may have replaced or removed published recipes, swap in the replayed result
+                    recipes.clear();
+                    recipes.addAll(all);
+                } else {
+                    recipes.addAll(rest);
+                }
+                snapshot = null;
+                recipesById.clear();
+                recipesById.putAll(index);
+                searchIndex = words;
+                facetIndex = facets;
+                ingredientIndex = pantry;
+                nextId = firstFreeId;
+                if (timeToFirstRecipeMs < 0 && !recipes.isEmpty()) {
+                    recordTimeToFirstRecipe(startTime);
+                }
+                uncompactedEntries = journalEntries;
+                loading = false;
+                loaded = true;
+                Log.i(TAG, "Loaded " + recipes.size() + " recipes in "
+                        + (SystemClock.elapsedRealtime() - startTime) + " ms");
+                if (persistIds) {
+                    saveRecipes(appContext);
+                }
+                if (loadListener != null) {
+                    loadListener.onLoadFinished();
+                }
+            });
+        });
+    }
+
+    private static void publishBatch(ArrayList<Recipe> batch, long startTime) {
+        mainHandler.post(() -> {
+            int start = recipes.size();
+            recipes.addAll(batch);
+            snapshot = null;
+            if (timeToFirstRecipeMs < 0) {
+                recordTimeToFirstRecipe(startTime);
+            }
+            if (loadListener != null) {
+                loadListener.onRecipesAppended(start, batch.size());
+            }
+        });
+    }
+
+    private static void recordTimeToFirstRecipe(long startTime) {
+        timeToFirstRecipeMs = SystemClock.elapsedRealtime() - startTime;
+        Log.i(TAG, "Time to first recipe: " + timeToFirstRecipeMs + " ms");
+    }
+
+    // Older versions kept the whole list as one JSON string in SharedPreferences
+    private static void migrateFromPreferences(Context context, RecipeJournal store) throws Exception {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String json = prefs.getString(RECIPES_KEY, null);
+        if (json == null) return;
+
+        store.migrate(json);
+        prefs.edit().remove(RECIPES_KEY).commit();
+    }
+
+    // The list in its current order, safe to hand to another thread. Queries on an unchanged list
+    // share one copy.
+    public static List<Recipe> snapshot() {
+        if (snapshot == null) {
+            snapshot = Collections.unmodifiableList(new ArrayList<>(recipes));
+        }
+        return snapshot;
+    }
+
+    public static Recipe getRecipe(long id) {
+        return recipesById.get(id);
+    }
+
+    public static RecipeSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public static RecipeFacetIndex getFacetIndex() {
+        return facetIndex;
+    }
+
+    public static RecipeIngredientIndex getIngredientIndex() {
+        return ingredientIndex;
+    }
+
+    // Recipes that can be made from the pantry, or are missing at most maxMissing ingredients,
+    // fewest missing first. Empty until loading has finished.
+    public static List<Recipe> findRecipesFromPantry(Collection<String> pantry, int maxMissing) {
+        ArrayList<Recipe> found = new ArrayList<>();
+        if (ingredientIndex == null) return found;
+        for (RecipeIngredientIndex.Match match : ingredientIndex.query(pantry, maxMissing)) {
+            Recipe recipe = recipesById.get(match.id);
+            if (recipe != null) {
+                found.add(recipe);
             }
         }
+        return found;
     }
 
+    public static void addRecipe(Context context, Recipe recipe) {
+        // Before loading nextId doesn't know the stored ids yet, a put would overwrite one of them
+        if (!loaded) throw new IllegalStateException("Recipes are still loading");
+        recipe.setId(nextId++);
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(NEXT_ID_KEY, nextId)
+                .apply();
+        recipes.add(recipe);
+        snapshot = null;
+        recipesById.put(recipe.getId(), recipe);
+        if (searchIndex != null) {
+            searchIndex.add(recipe);
+            facetIndex.add(recipe);
+            ingredientIndex.add(recipe);
+        }
+        record(context, new RecipeJournal.Entry(RecipeJournal.OP_PUT, recipe.getId(), recipe));
+        RecipeThumbnails.generate(context, recipe);
+    }
 
+    public static void updateRecipe(Context context, long id, Recipe recipe) {
+        int position = positionOf(id);
+        if (position < 0) return;
+        recipe.setId(id);
+        recipes.set(position, recipe);
+        snapshot = null;
+        recipesById.put(id, recipe);
+        if (searchIndex != null) {
+            searchIndex.update(recipe);
+            facetIndex.update(recipe);
+            ingredientIndex.update(recipe);
+        }
+        record(context, new RecipeJournal.Entry(RecipeJournal.OP_PUT, id, recipe));
+        RecipeThumbnails.generate(context, recipe); // replaces those of a previous photo
+    }
+
+    public static void removeRecipe(Context context, long id) {
+        int position = positionOf(id);
+        if (position < 0) return;
+        recipes.remove(position);
+        snapshot = null;
+        recipesById.remove(id);
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+            facetIndex.remove(id);
+            ingredientIndex.remove(id);
+        }
+        record(context, new RecipeJournal.Entry(RecipeJournal.OP_DELETE, id, null));
+        RecipeThumbnails.invalidate(context, id);
+    }
+
+    private static int positionOf(long id) {
+        return RecipeQuery.positionOf(recipes, id);
+    }
+
+    private static void record(Context context, RecipeJournal.Entry entry) {
+        String encoded = getJournal(context).encode(entry);
+        synchronized (pendingLock) {
+            pendingEntries.add(encoded);
+        }
+
+        if (++uncompactedEntries >= COMPACTION_THRESHOLD) {
+            saveRecipes(context);
+        } else {
+            saveScheduler.markDirty();
+        }
+    }
+
+    // Schedules a full snapshot and resets the journal. Records still waiting to be appended are
+    // already part of the snapshot, so they are dropped instead of written.
     public static void saveRecipes(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        Gson gson = new Gson();
-        String json = gson.toJson(recipes);
-        editor.putString(RECIPES_KEY, json);
-        editor.apply();
+        getJournal(context);
+        List<Recipe> copy = snapshot();
+        synchronized (pendingLock) {
+            pendingSnapshot = copy;
+            pendingEntries = new ArrayList<>();
+        }
+        uncompactedEntries = 0;
+        saveScheduler.markDirty();
+    }
+
+    // Blocks until every mutation made so far is on disk
+    public static void flush() throws InterruptedException, ExecutionException {
+        saveScheduler.flush();
+    }
+
+    public static Future<?> flushAsync() {
+        return saveScheduler.flushAsync();
+    }
+
+    // Runs on the writer thread, once per coalescing window
+    private static void writePending() {
+        ArrayList<String> entries;
+        List<Recipe> compacted;
+        synchronized (pendingLock) {
+            entries = pendingEntries;
+            compacted = pendingSnapshot;
+            pendingEntries = new ArrayList<>();
+            pendingSnapshot = null;
+        }
+        try {
+            if (compacted != null) {
+                journal.compact(compacted);
+            }
+            if (!entries.isEmpty()) {
+                journal.append(entries);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 }
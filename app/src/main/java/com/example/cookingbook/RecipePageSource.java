@@ -0,0 +1,86 @@
+package com.example.cookingbook;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+// Rows of a recipe store read a page at a time. Only a window of pages around the last row asked
+// for stays decoded, pages further away are dropped. The list only reads from it while the
+// cookbook is loading, afterwards RecipeManager holds every recipe on the heap anyway.
+public class RecipePageSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 32;
+    // Pages kept on each side of the one in view, enough for a screen plus a fling's worth
+    public static final int DEFAULT_WINDOW_RADIUS = 2;
+
+    public interface PageLoader {
+        Recipe[] load(int start, int count);
+    }
+
+    private final PageLoader loader;
+    private final int size;
+    private final int pageSize;
+    private final int windowRadius;
+    private final HashMap<Integer, Recipe[]> pages = new HashMap<>();
+    private int pagesLoaded;
+    private int pagesEvicted;
+
+    public RecipePageSource(PageLoader loader, int size, int pageSize, int windowRadius) {
+        this.loader = loader;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.windowRadius = windowRadius;
+    }
+
+    public static RecipePageSource of(MappedRecipeCatalog catalog) {
+        return new RecipePageSource((start, count) -> {
+            Recipe[] page = new Recipe[count];
+            for (int i = 0; i < count; i++) {
+                page[i] = catalog.get(start + i);
+            }
+            return page;
+        }, catalog.size(), DEFAULT_PAGE_SIZE, DEFAULT_WINDOW_RADIUS);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Recipe get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + size);
+        }
+        int page = position / pageSize;
+        Recipe[] rows = pages.get(page);
+        if (rows == null) {
+            int start = page * pageSize;
+            rows = loader.load(start, Math.min(pageSize, size - start));
+            pages.put(page, rows);
+            pagesLoaded++;
+            evictOutside(page - windowRadius, page + windowRadius);
+        }
+        return rows[position - page * pageSize];
+    }
+
+    public int getResidentPages() {
+        return pages.size();
+    }
+
+    public int getPagesLoaded() {
+        return pagesLoaded;
+    }
+
+    public int getPagesEvicted() {
+        return pagesEvicted;
+    }
+
+    private void evictOutside(int first, int last) {
+        Iterator<Integer> it = pages.keySet().iterator();
+        while (it.hasNext()) {
+            int page = it.next();
+            if (page < first || page > last) {
+                it.remove();
+                pagesEvicted++;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+// One combination of search text, category and dietary flags. run() only reads its arguments,
+// so it can work on a snapshot of the recipe list away from the main thread.
+public class RecipeQuery {
+
+    // How many recipes to scan between checks for a newer query having superseded this one
+    private static final int INTERRUPT_CHECK_INTERVAL = 1024;
+    // Search results start with this many matches by relevance, the rest follow in list order
+    public static final int RANKED_PAGE_SIZE = 50;
+    // Scoring every match costs more than the scan while the first letters match most of the
+    // cookbook, so only queries with a word this long, or few enough matches, get ranked
+    private static final int MIN_RANKED_WORD_LENGTH = 3;
+    private static final int MAX_MATCHES_RANKED_ANYWAY = 1000;
+
+    private final String text;
+    private final RecipeCategory category; // null for all categories
+    private final int dietaryFlags; // Recipe.VEGETARIAN etc., 0 for no restriction
+    private final String[] words;
+
+    public RecipeQuery(String text, RecipeCategory category, int dietaryFlags) {
+        this.text = text != null ? text : "";
+        this.category = category;
+        this.dietaryFlags = dietaryFlags;
+        this.words = RecipeSearchIndex.tokenize(this.text);
+    }
+
+    public String getText() { return text; }
+    public RecipeCategory getCategory() { return category; }
+    public int getDietaryFlags() { return dietaryFlags; }
+
+    public boolean isUnfiltered() {
+        return words.length == 0 && category == null && dietaryFlags == 0;
+    }
+
+    public boolean matches(Recipe recipe) {
+        return (category == null || recipe.getCategory() == category)
+                && (recipe.getDietaryFlags() & dietaryFlags) == dietaryFlags
+                && (words.length == 0 || RecipeSearchIndex.matches(recipe, words));
+    }
+
+    // Matching recipes, or null if the thread was interrupted on the way. The indexes are used
+    // when both are given, the list is scanned otherwise. With search words and indexes the
+    // most relevant matches come first, unless the words are too short to be worth ranking
+    // the many recipes they match; otherwise everything is in list order.
+    public List<Recipe> run(List<Recipe> recipes, RecipeSearchIndex searchIndex, RecipeFacetIndex facetIndex) {
+        if (searchIndex == null || facetIndex == null) {
+            return scan(recipes);
+        }
+
+        ArrayList<Recipe> results = new ArrayList<>();
+        // Facets are an AND over bit sets, search hits are then checked against the result. Ids
+        // come out ascending like the list, so one forward pass over the list finds every hit.
+        BitSet facets = facetIndex.select(category, dietaryFlags);
+        int position = 0;
+        if (words.length > 0) {
+            RecipeSearchIndex.Hits hits = searchIndex.find(words);
+            for (long id : hits.ids) {
+                if (facets.get((int) id)) {
+                    position = addIfPresent(results, recipes, position, id);
+                }
+            }
+            return rank(results, hits.statistics);
+        } else {
+            int checked = 0;
+            for (int id = facets.nextSetBit(0); id >= 0; id = facets.nextSetBit(id + 1)) {
+                if (++checked % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+                position = addIfPresent(results, recipes, position, id);
+            }
+        }
+        return results;
+    }
+
+    // Only the first page is ordered, so the cost grows with the page size rather than with
+    // the number of matches
+    private List<Recipe> rank(List<Recipe> matches, RecipeRanker.Statistics statistics) {
+        if (matches.size() <= 1) return matches;
+        if (matches.size() > MAX_MATCHES_RANKED_ANYWAY && longestWordLength() < MIN_RANKED_WORD_LENGTH) {
+            return matches;
+        }
+        List<Recipe> best = RecipeRanker.topK(matches, words, statistics, RANKED_PAGE_SIZE);
+        Set<Recipe> ranked = Collections.newSetFromMap(new IdentityHashMap<>());
+        ranked.addAll(best);
+
+        ArrayList<Recipe> results = new ArrayList<>(matches.size());
+        results.addAll(best);
+        for (Recipe recipe : matches) {
+            if (!ranked.contains(recipe)) {
+                results.add(recipe);
+            }
+        }
+        return results;
+    }
+
+    private int longestWordLength() {
+        int longest = 0;
+        for (String word : words) {
+            longest = Math.max(longest, word.length());
+        }
+        return longest;
+    }
+
+    private List<Recipe> scan(List<Recipe> recipes) {
+        return RecipeFilterEngine.getDefault().filter(recipes, this::matches);
+    }
+
+    // Looks for id from position on, where the previous hit was found, and returns the position
+    // to continue from. The index may already hold recipes added after the snapshot was taken,
+    // those are skipped.
+    private static int addIfPresent(List<Recipe> out, List<Recipe> recipes, int position, long id) {
+        position = seek(recipes, position, id);
+        if (position < recipes.size() && recipes.get(position).getId() == id) {
+            out.add(recipes.get(position));
+            return position + 1;
+        }
+        return position;
+    }
+
+    // First position at or after from whose id is at least id. Steps double until they pass id,
+    // so nearby hits cost a comparison or two and far ones a short binary search.
+    static int seek(List<Recipe> recipes, int from, long id) {
+        int size = recipes.size();
+        if (from >= size || recipes.get(from).getId() >= id) return from;
+        int step = 1;
+        while (from + step < size && recipes.get(from + step).getId() < id) {
+            step <<= 1;
+        }
+        int low = from + (step >> 1) + 1;
+        int high = Math.min(from + step, size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recipes.get(mid).getId() < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // New recipes always get the next id and are appended, edits keep their id and position,
+    // so ids ascend along the list and a binary search finds any recipe
+    public static int positionOf(List<Recipe> recipes, long id) {
+        int low = 0;
+        int high = recipes.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = recipes.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
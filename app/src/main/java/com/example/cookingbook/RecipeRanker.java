@@ -0,0 +1,115 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// BM25 relevance of a recipe for the words of a query, over its title, description and
+// ingredients. Field term counts are weighted before saturation (BM25F), so a word in the title
+// counts for three in the description. Words only matched as typos count for half.
+public class RecipeRanker {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final double TITLE_WEIGHT = 3.0;
+    static final double INGREDIENT_WEIGHT = 1.5;
+    static final double DESCRIPTION_WEIGHT = 1.0;
+    static final double TYPO_WEIGHT = 0.5;
+
+    // Collection numbers for one query, see RecipeSearchIndex.statistics
+    public static class Statistics {
+        final int documents;
+        final double averageLength;
+        final int[] documentFrequencies;
+        // The vocabulary words each query word was taken as a typo for, empty if it matched a prefix
+        final List<Set<String>> corrections;
+
+        Statistics(int documents, double averageLength, int[] documentFrequencies, List<Set<String>> corrections) {
+            this.documents = documents;
+            this.averageLength = averageLength;
+            this.documentFrequencies = documentFrequencies;
+            this.corrections = corrections;
+        }
+    }
+
+    public static double lengthOf(Recipe recipe) {
+        return TITLE_WEIGHT * recipe.getTitleTokens().length
+                + DESCRIPTION_WEIGHT * recipe.getDescriptionTokens().length
+                + INGREDIENT_WEIGHT * recipe.getIngredientTokens().length;
+    }
+
+    public static double score(Recipe recipe, String[] words, Statistics statistics) {
+        double lengthRatio = statistics.averageLength > 0 ? lengthOf(recipe) / statistics.averageLength : 1;
+        double score = 0;
+        for (int i = 0; i < words.length; i++) {
+            Set<String> corrections = statistics.corrections.get(i);
+            boolean typo = !corrections.isEmpty();
+            double frequency = TITLE_WEIGHT * count(recipe.getTitleTokens(), words[i], corrections)
+                    + DESCRIPTION_WEIGHT * count(recipe.getDescriptionTokens(), words[i], corrections)
+                    + INGREDIENT_WEIGHT * count(recipe.getIngredientTokens(), words[i], corrections);
+            if (frequency == 0) continue;
+
+            int df = statistics.documentFrequencies[i];
+            double idf = Math.log(1 + (statistics.documents - df + 0.5) / (df + 0.5));
+            double saturated = frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+            score += idf * saturated * (typo ? TYPO_WEIGHT : 1);
+        }
+        return score;
+    }
+
+    // The k best matches, best first; ties keep the order of the input. A min-heap of size k
+    // holds the best so far, so this costs O(n log k) and never sorts the whole match set.
+    public static List<Recipe> topK(List<Recipe> matches, String[] words, Statistics statistics, int k) {
+        if (k <= 0) return new ArrayList<>();
+        PriorityQueue<Scored> heap = new PriorityQueue<>(Math.min(k, matches.size()) + 1);
+        for (int i = 0; i < matches.size(); i++) {
+            double score = score(matches.get(i), words, statistics);
+            if (heap.size() < k) {
+                heap.add(new Scored(matches.get(i), i, score));
+            } else if (score > heap.peek().score) { // on a tie the earlier match stays
+                heap.poll();
+                heap.add(new Scored(matches.get(i), i, score));
+            }
+        }
+
+        ArrayList<Recipe> best = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            best.add(heap.poll().recipe);
+        }
+        Collections.reverse(best);
+        return best;
+    }
+
+    // The corrections were found when the query was resolved, so a typo costs a set lookup per
+    // token here rather than an edit distance
+    private static int count(String[] tokens, String word, Set<String> corrections) {
+        int count = 0;
+        for (String token : tokens) {
+            if (token.startsWith(word) || corrections.contains(token)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Orders worst first, so the heap's head is the match to drop
+    private static class Scored implements Comparable<Scored> {
+        final Recipe recipe;
+        final int position;
+        final double score;
+
+        Scored(Recipe recipe, int position, double score) {
+            this.recipe = recipe;
+            this.position = position;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Scored other) {
+            if (score != other.score) return Double.compare(score, other.score);
+            return Integer.compare(other.position, position); // later is worse
+        }
+    }
+}
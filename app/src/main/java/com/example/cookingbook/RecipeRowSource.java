@@ -0,0 +1,10 @@
+package com.example.cookingbook;
+
+// The rows RecipeAdapter currently shows, for helpers that work ahead of the scroll
+public interface RecipeRowSource {
+    int getItemCount();
+
+    Recipe getRecipe(int position);
+
+    boolean isCompactMode();
+}
@@ -0,0 +1,50 @@
+package com.example.cookingbook;
+
+import java.util.List;
+
+// What a full list row shows for one version of a recipe. Built once and reused on every bind,
+// RecipeRowTextCache swaps the texts for precomputed ones.
+public class RecipeRowText {
+
+    public static final int PREVIEW_INGREDIENTS = 3;
+    // About four lines of a full row, longer descriptions end in an ellipsis
+    public static final int MAX_DESCRIPTION_LENGTH = 240;
+
+    final CharSequence description;
+    final CharSequence ingredientsPreview; // null when the recipe has no ingredients
+    final int dietaryFlags;
+
+    RecipeRowText(CharSequence description, CharSequence ingredientsPreview, int dietaryFlags) {
+        this.description = description;
+        this.ingredientsPreview = ingredientsPreview;
+        this.dietaryFlags = dietaryFlags;
+    }
+
+    public static RecipeRowText of(Recipe recipe) {
+        return new RecipeRowText(truncate(recipe.getDescription(), MAX_DESCRIPTION_LENGTH),
+                ingredientsPreview(recipe.getIngredients()), recipe.getDietaryFlags());
+    }
+
+    // "Ingredients: a, b, c, +N more"
+    static String ingredientsPreview(List<String> ingredients) {
+        if (ingredients == null || ingredients.isEmpty()) return null;
+        StringBuilder text = new StringBuilder("Ingredients: ");
+        for (int i = 0; i < Math.min(PREVIEW_INGREDIENTS, ingredients.size()); i++) {
+            if (i > 0) text.append(", ");
+            text.append(ingredients.get(i));
+        }
+        if (ingredients.size() > PREVIEW_INGREDIENTS) {
+            text.append(", +").append(ingredients.size() - PREVIEW_INGREDIENTS).append(" more");
+        }
+        return text.toString();
+    }
+
+    // Cuts at the last space before maxLength when there is one, so words stay whole
+    static String truncate(String text, int maxLength) {
+        if (text == null) return "";
+        if (text.length() <= maxLength) return text;
+        int end = text.lastIndexOf(' ', maxLength);
+        if (end < maxLength / 2) end = maxLength;
+        return text.substring(0, end).trim() + "…";
+    }
+}
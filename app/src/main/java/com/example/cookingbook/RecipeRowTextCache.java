@@ -0,0 +1,137 @@
+package com.example.cookingbook;
+
+import android.util.LruCache;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Row texts by recipe instance. Edits replace the Recipe, so an instance is one version of a
+// recipe and its entry never goes stale. Rows around the one being bound are prepared on a
+// worker as PrecomputedText, so by the time they scroll in, binding only assigns fields and the
+// text views skip measuring the text again.
+public class RecipeRowTextCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    // Rows on each side of a bound row to prepare, more than a fling binds between two frames
+    public static final int PREPARE_AHEAD = 8;
+
+    private final LruCache<Recipe, RecipeRowText> cache;
+    private final Set<Recipe> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "row-text"));
+    private final RecipeRowSource rows;
+    // Taken from the first full row's text views, precomputed text has to match their style
+    private volatile PrecomputedTextCompat.Params descriptionParams;
+    private volatile PrecomputedTextCompat.Params previewParams;
+    // The rows queued last time, around preparedAt; -1 until the first bind after the rows changed
+    private int preparedAt = -1;
+    private int preparedFirst;
+    private int preparedLast = -1;
+    private int hits;
+    private int misses;
+
+    public RecipeRowTextCache(RecipeRowSource rows, int capacity) {
+        this.rows = rows;
+        this.cache = new LruCache<>(capacity);
+    }
+
+    // Called once the views are attached, before that their text direction isn't resolved and
+    // the params could differ from the ones the views end up with
+    public void measure(TextView description, TextView ingredientsPreview) {
+        if (descriptionParams == null) {
+            descriptionParams = TextViewCompat.getTextMetricsParams(description);
+            previewParams = TextViewCompat.getTextMetricsParams(ingredientsPreview);
+        }
+    }
+
+    // The texts for the row at position. A miss is built right here, without precomputing, and
+    // kept until the precomputed version replaces it.
+    // Rows around it are queued only once the binds have moved half a window away from where
+    // they were queued last, so most binds cost a single lookup.
+    public RecipeRowText get(int position) {
+        Recipe recipe = rows.getRecipe(position);
+        RecipeRowText text = cache.get(recipe);
+        if (text != null) {
+            hits++;
+        } else {
+            misses++;
+            text = RecipeRowText.of(recipe);
+            cache.put(recipe, text); // the worker swaps in precomputed texts when it gets to it
+        }
+        if (preparedAt < 0 || Math.abs(position - preparedAt) > PREPARE_AHEAD / 2) {
+            prepareAround(position);
+        }
+        return text;
+    }
+
+    // The adapter shows different rows now, positions queued so far say nothing about them
+    public void onRowsChanged() {
+        preparedAt = -1;
+        preparedFirst = 0;
+        preparedLast = -1;
+    }
+
+    // setPrecomputedText throws when the params differ from the view's, for instance after a
+    // change of locale or layout direction, such text is set like any other
+    public static void setText(TextView view, CharSequence text) {
+        if (text instanceof PrecomputedTextCompat) {
+            PrecomputedTextCompat precomputed = (PrecomputedTextCompat) text;
+            if (precomputed.getParams().equals(TextViewCompat.getTextMetricsParams(view))) {
+                TextViewCompat.setPrecomputedText(view, precomputed);
+                return;
+            }
+        }
+        view.setText(text);
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public String getMetrics() {
+        int binds = hits + misses;
+        return "hits=" + hits + ", misses=" + misses
+                + ", hitRate=" + (binds > 0 ? Math.round(hits * 100f / binds) + "%" : "n/a")
+                + ", cached=" + cache.size();
+    }
+
+    private void prepareAround(int position) {
+        int first = Math.max(0, position - PREPARE_AHEAD);
+        int last = Math.min(rows.getItemCount() - 1, position + PREPARE_AHEAD);
+        for (int i = first; i <= last; i++) {
+            if (i >= preparedFirst && i <= preparedLast) continue; // queued last time
+            Recipe recipe = rows.getRecipe(i);
+            if (needsPreparing(cache.get(recipe)) && pending.add(recipe)) {
+                worker.execute(() -> {
+                    cache.put(recipe, precompute(RecipeRowText.of(recipe)));
+                    pending.remove(recipe);
+                });
+            }
+        }
+        preparedAt = position;
+        preparedFirst = first;
+        preparedLast = last;
+    }
+
+    // Missing, or built on a miss before the params were known to the worker
+    private boolean needsPreparing(RecipeRowText text) {
+        return text == null
+                || descriptionParams != null && !(text.description instanceof PrecomputedTextCompat);
+    }
+
+    private RecipeRowText precompute(RecipeRowText text) {
+        PrecomputedTextCompat.Params description = descriptionParams;
+        PrecomputedTextCompat.Params preview = previewParams;
+        if (description == null) return text; // no full row created yet
+        return new RecipeRowText(
+                PrecomputedTextCompat.create(text.description, description),
+                text.ingredientsPreview != null ? PrecomputedTextCompat.create(text.ingredientsPreview, preview) : null,
+                text.dietaryFlags);
+    }
+}
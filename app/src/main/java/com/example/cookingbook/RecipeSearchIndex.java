@@ -0,0 +1,345 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Inverted index from the normalized words of a recipe's title, description and ingredients to
+// recipe ids. Every query word has to match the start of some word of the recipe ("chick" finds
+// "Chicken soup"), which lets a query resolve by intersecting posting lists instead of scanning.
+// A query word that starts no word at all is taken as a typo and stands for the title and
+// ingredient words within a small edit distance of it instead ("chiken" finds "chicken").
+public class RecipeSearchIndex {
+
+    private static final long[] NO_IDS = new long[0];
+    // Words shorter than this can match most of the cookbook. They are checked against the
+    // recipes the other words found when that is cheaper than merging all of their lists.
+    private static final int SHORT_PREFIX_LENGTH = 3;
+    // Checking one id against a recipe's words costs about as much as merging this many postings
+    private static final int FILTER_COST = 32;
+    // Unions over more postings than this go through a bit set instead of a sort
+    private static final int BIT_SET_UNION_MIN = 4096;
+
+    // Sorted so that all words sharing a prefix form one contiguous range
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private final HashMap<Long, String[]> tokensById = new HashMap<>();
+    private final FuzzyWordIndex fuzzyWords = new FuzzyWordIndex();
+    private final HashMap<Long, String[]> fuzzyTokensById = new HashMap<>();
+    // Weighted field lengths for RecipeRanker
+    private final HashMap<Long, Double> lengthById = new HashMap<>();
+    private double totalLength;
+    // Prefix unions of the previous query. While the last word is typed the others stay the
+    // same and aren't merged again. Emptied whenever the index changes.
+    private HashMap<String, long[]> previousUnions = new HashMap<>();
+
+    public synchronized void add(Recipe recipe) {
+        previousUnions.clear();
+        String[] tokens = recipe.getSearchTokens();
+        tokensById.put(recipe.getId(), tokens);
+        for (String token : tokens) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(token, list);
+            }
+            list.add(recipe.getId());
+        }
+
+        double length = RecipeRanker.lengthOf(recipe);
+        lengthById.put(recipe.getId(), length);
+        totalLength += length;
+
+        String[] fuzzyTokens = fuzzyTokensOf(recipe);
+        fuzzyTokensById.put(recipe.getId(), fuzzyTokens);
+        for (String token : fuzzyTokens) {
+            fuzzyWords.add(token);
+        }
+    }
+
+    public synchronized void remove(long id) {
+        previousUnions.clear();
+        String[] tokens = tokensById.remove(id);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            PostingList list = postings.get(token);
+            if (list != null && list.remove(id) && list.size() == 0) {
+                postings.remove(token);
+            }
+        }
+        for (String token : fuzzyTokensById.remove(id)) {
+            fuzzyWords.remove(token);
+        }
+        totalLength -= lengthById.remove(id);
+    }
+
+    public synchronized void update(Recipe recipe) {
+        remove(recipe.getId());
+        add(recipe);
+    }
+
+    public synchronized int size() {
+        return tokensById.size();
+    }
+
+    // A query resolved against the index once: the recipes matching all of its words, and what
+    // RecipeRanker needs to score them
+    public static class Hits {
+        public final long[] ids; // ascending, may be shared with the index, don't modify
+        public final RecipeRanker.Statistics statistics;
+
+        Hits(long[] ids, RecipeRanker.Statistics statistics) {
+            this.ids = ids;
+            this.statistics = statistics;
+        }
+    }
+
+    // Ids of all recipes matching every word of the query, in ascending order
+    public synchronized long[] search(String query) {
+        String[] words = tokenize(query);
+        if (words.length == 0) return null;
+        return find(words).ids.clone();
+    }
+
+    public synchronized RecipeRanker.Statistics statistics(String[] words) {
+        return find(words).statistics;
+    }
+
+    public synchronized Hits find(String[] words) {
+        ArrayList<Set<String>> corrections = new ArrayList<>(words.length);
+        HashMap<String, long[]> unions = new HashMap<>();
+        long[][] perWord = resolve(words, corrections, unions);
+        long[] ids = intersectAll(perWord);
+
+        // Short words last, rarest first: each is either checked against what is left or, if
+        // that would cost more than its lists, merged and intersected like the others
+        Integer[] deferred = shortWords(words, perWord);
+        ArrayList<String> checked = new ArrayList<>();
+        for (int i : deferred) {
+            long total = postingCount(words[i]);
+            if (ids != null && (long) ids.length * FILTER_COST < total) {
+                checked.add(words[i]);
+            } else {
+                perWord[i] = prefixUnion(words[i]);
+                unions.put(words[i], perWord[i]);
+                ids = ids == null ? perWord[i] : intersect(ids, perWord[i]);
+            }
+        }
+        if (!checked.isEmpty()) {
+            ids = filter(ids, checked);
+        }
+        previousUnions = unions;
+
+        int documents = tokensById.size();
+        int[] documentFrequencies = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            // A checked word wasn't counted, it matches too much to carry much weight anyway
+            documentFrequencies[i] = perWord[i] != null ? perWord[i].length : documents;
+        }
+        RecipeRanker.Statistics statistics = new RecipeRanker.Statistics(documents,
+                documents == 0 ? 0 : totalLength / documents, documentFrequencies, corrections);
+        return new Hits(ids != null ? ids : NO_IDS, statistics);
+    }
+
+    // Intersection of the resolved words, null if none was resolved yet
+    private static long[] intersectAll(long[][] perWord) {
+        int count = 0;
+        for (long[] ids : perWord) {
+            if (ids == null) continue;
+            if (ids.length == 0) return NO_IDS;
+            count++;
+        }
+        if (count == 0) return null;
+        // Start from the rarest word so intermediate results stay small
+        long[][] byLength = new long[count][];
+        int n = 0;
+        for (long[] ids : perWord) {
+            if (ids != null) byLength[n++] = ids;
+        }
+        Arrays.sort(byLength, (a, b) -> Integer.compare(a.length, b.length));
+
+        long[] result = byLength[0];
+        for (int i = 1; i < byLength.length && result.length > 0; i++) {
+            result = intersect(result, byLength[i]);
+        }
+        return result;
+    }
+
+    // Ids matching each word, through its prefix or else as a typo, and null for the short words
+    // left to find(). The words a typo was taken for go into corrections, empty for the others.
+    // Prefix unions are also put into unions for the next query.
+    private long[][] resolve(String[] words, List<Set<String>> corrections, HashMap<String, long[]> unions) {
+        long[][] perWord = new long[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            Set<String> corrected = Collections.emptySet();
+            if (words[i].length() >= SHORT_PREFIX_LENGTH) {
+                perWord[i] = prefixUnion(words[i]);
+                unions.put(words[i], perWord[i]);
+                if (perWord[i].length == 0) {
+                    List<String> found = fuzzyWords.find(words[i]);
+                    perWord[i] = fuzzyUnion(found);
+                    if (!found.isEmpty()) {
+                        corrected = new HashSet<>(found);
+                    }
+                }
+            }
+            corrections.add(corrected);
+        }
+        return perWord;
+    }
+
+    // Positions of the words resolve() left out, by how many postings they have
+    private Integer[] shortWords(String[] words, long[][] perWord) {
+        ArrayList<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < words.length; i++) {
+            if (perWord[i] == null) positions.add(i);
+        }
+        Integer[] sorted = positions.toArray(new Integer[0]);
+        long[] totals = new long[words.length];
+        for (int i : sorted) {
+            totals[i] = postingCount(words[i]);
+        }
+        Arrays.sort(sorted, (a, b) -> Long.compare(totals[a], totals[b]));
+        return sorted;
+    }
+
+    // Same rule as search() without the typo tolerance, for filtering recipes the index doesn't
+    // hold yet
+    public static boolean matches(Recipe recipe, String[] queryWords) {
+        return matchesAll(recipe.getSearchTokens(), Arrays.asList(queryWords));
+    }
+
+    public static String[] tokenize(String query) {
+        return SearchNormalizer.tokenize(SearchNormalizer.normalize(query));
+    }
+
+    // Distinct words of title and ingredients, the ones worth correcting a typo towards
+    private static String[] fuzzyTokensOf(Recipe recipe) {
+        LinkedHashSet<String> tokens = new LinkedHashSet<>();
+        tokens.addAll(Arrays.asList(recipe.getTitleTokens()));
+        tokens.addAll(Arrays.asList(recipe.getIngredientTokens()));
+        return tokens.toArray(new String[0]);
+    }
+
+    private Collection<PostingList> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    private long postingCount(String prefix) {
+        long total = 0;
+        for (PostingList list : prefixRange(prefix)) {
+            total += list.size();
+        }
+        return total;
+    }
+
+    private long[] prefixUnion(String prefix) {
+        long[] previous = previousUnions.get(prefix);
+        return previous != null ? previous : union(prefixRange(prefix));
+    }
+
+    // The ids whose recipe has a word starting with each of the prefixes
+    private long[] filter(long[] ids, List<String> prefixes) {
+        long[] out = new long[ids.length];
+        int n = 0;
+        for (long id : ids) {
+            String[] tokens = tokensById.get(id);
+            if (tokens != null && matchesAll(tokens, prefixes)) {
+                out[n++] = id;
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(out, n);
+    }
+
+    private static boolean matchesAll(String[] tokens, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private long[] fuzzyUnion(List<String> matches) {
+        ArrayList<PostingList> lists = new ArrayList<>();
+        for (String match : matches) {
+            lists.add(postings.get(match)); // fuzzy words are a subset of the indexed words
+        }
+        return union(lists);
+    }
+
+    private static long[] union(Collection<PostingList> lists) {
+        if (lists.isEmpty()) return NO_IDS;
+        if (lists.size() == 1) {
+            return lists.iterator().next().toArray();
+        }
+
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size();
+        }
+        if (total >= BIT_SET_UNION_MIN) {
+            return bitSetUnion(lists);
+        }
+        long[] merged = new long[total];
+        int n = 0;
+        for (PostingList list : lists) {
+            n = list.copyInto(merged, n);
+        }
+        Arrays.sort(merged);
+
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, unique);
+    }
+
+    // Linear in the number of postings, without the sort. Ids are small dense numbers, the facet
+    // index keeps them in bit sets too.
+    private static long[] bitSetUnion(Collection<PostingList> lists) {
+        BitSet bits = new BitSet();
+        for (PostingList list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                bits.set((int) list.get(i));
+            }
+        }
+        long[] ids = new long[bits.cardinality()];
+        int n = 0;
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            ids[n++] = id;
+        }
+        return ids;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
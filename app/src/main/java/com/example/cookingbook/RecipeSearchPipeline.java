@@ -0,0 +1,133 @@
+package com.example.cookingbook;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Runs recipe queries on a worker thread. Each submit supersedes the query before it: a query
+// still waiting out its debounce delay never runs, a running one is interrupted, and a finished
+// one whose result hasn't been delivered yet is dropped. Only the latest result reaches the
+// listener, on the result executor.
+public class RecipeSearchPipeline {
+
+    public static final long DEFAULT_DEBOUNCE_MS = 150;
+
+    public interface Listener {
+        void onResults(RecipeQuery query, List<Recipe> results, long latencyMs);
+    }
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "recipe-search"));
+    private final Executor resultExecutor;
+    private final Listener listener;
+
+    // Guarded by this
+    private long generation;
+    private boolean inFlight; // the latest query has neither been delivered nor failed
+    private ScheduledFuture<?> pending;
+    private long issued;
+    private long cancelled;
+    private long published;
+    private long totalLatencyMs;
+    private long maxLatencyMs;
+
+    public RecipeSearchPipeline(Executor resultExecutor, Listener listener) {
+        this.resultExecutor = resultExecutor;
+        this.listener = listener;
+    }
+
+    public synchronized void submit(RecipeQuery query, Callable<List<Recipe>> search, long debounceMs) {
+        supersede();
+        issued++;
+        inFlight = true;
+        long queryGeneration = generation;
+        long issuedAt = System.nanoTime();
+        pending = worker.schedule(() -> run(queryGeneration, query, search, issuedAt),
+                debounceMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Drops whatever is in flight without starting anything new
+    public synchronized void cancel() {
+        supersede();
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(issued, cancelled, published,
+                published == 0 ? 0 : totalLatencyMs / published, maxLatencyMs);
+    }
+
+    private void supersede() {
+        if (inFlight) {
+            cancelled++; // the previous query will never be delivered now
+            inFlight = false;
+        }
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    private void run(long queryGeneration, RecipeQuery query, Callable<List<Recipe>> search, long issuedAt) {
+        if (isStale(queryGeneration)) return;
+        List<Recipe> results;
+        try {
+            results = search.call();
+        } catch (Exception e) {
+            e.printStackTrace();
+            synchronized (this) {
+                if (queryGeneration == generation) inFlight = false;
+            }
+            return;
+        }
+        if (results == null || isStale(queryGeneration)) return;
+
+        resultExecutor.execute(() -> {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - issuedAt);
+            synchronized (this) {
+                if (queryGeneration != generation) return;
+                inFlight = false;
+                published++;
+                totalLatencyMs += latencyMs;
+                maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+            }
+            listener.onResults(query, results, latencyMs);
+        });
+    }
+
+    private synchronized boolean isStale(long queryGeneration) {
+        return queryGeneration != generation;
+    }
+
+    // Latencies run from submit to delivery and include the debounce delay
+    public static class Metrics {
+        public final long issued;
+        public final long cancelled;
+        public final long published;
+        public final long averageLatencyMs;
+        public final long maxLatencyMs;
+
+        Metrics(long issued, long cancelled, long published, long averageLatencyMs, long maxLatencyMs) {
+            this.issued = issued;
+            this.cancelled = cancelled;
+            this.published = published;
+            this.averageLatencyMs = averageLatencyMs;
+            this.maxLatencyMs = maxLatencyMs;
+        }
+
+        @Override
+        public String toString() {
+            return "issued=" + issued + " cancelled=" + cancelled + " published=" + published
+                    + " avgLatency=" + averageLatencyMs + "ms maxLatency=" + maxLatencyMs + "ms";
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.cookingbook;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.DisplayMetrics;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Downsampled copies of recipe photos for the list. They are written to app-private cache storage
+// when a recipe is saved, so a row decodes a small JPEG instead of a full camera photo. Only the
+// recipe form still loads the original. A thumbnail's name carries a hash of the image URI, so
+// changing a recipe's photo leaves the old files unused until they are deleted.
+public class RecipeThumbnails {
+
+    private static final String TAG = "RecipeThumbnails";
+    private static final String DIRECTORY = "thumbnails";
+    private static final int JPEG_QUALITY = 85;
+
+    public enum Size {
+        COMPACT(80, 80), // recipe_item_compact
+        FULL(0, 200); // recipe_item, 0 for the screen width
+
+        final int widthDp;
+        final int heightDp;
+
+        Size(int widthDp, int heightDp) {
+            this.widthDp = widthDp;
+            this.heightDp = heightDp;
+        }
+    }
+
+    // Writes and deletes run one at a time, in the order they were asked for
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "recipe-thumbnails"));
+    // File names known to be on disk, so binding a row never touches the file system
+    private static final Set<String> ready = ConcurrentHashMap.newKeySet();
+    // Recipes queued for generation, or whose photo couldn't be read this session
+    private static final Set<String> requested = ConcurrentHashMap.newKeySet();
+    private static boolean scanned;
+
+    // The thumbnail to show for the recipe, or null to fall back to the original. A missing one
+    // is generated in the background for next time. Recipes saved before ids existed show rows
+    // from the mapped snapshot with id 0 while loading, they get thumbnails once numbered.
+    public static File get(Context context, Recipe recipe, Size size) {
+        String imageUri = recipe.getImageUri();
+        if (imageUri == null || imageUri.isEmpty() || recipe.getId() == 0) return null;
+        scanOnce(context);
+        String name = fileName(recipe.getId(), imageUri, size);
+        if (ready.contains(name)) {
+            return new File(directory(context), name);
+        }
+        if (scanned) {
+            generate(context, recipe);
+        }
+        return null;
+    }
+
+    // Called when a recipe is added or edited. Thumbnails of a previous photo are deleted.
+    public static void generate(Context context, Recipe recipe) {
+        long id = recipe.getId();
+        if (id == 0) return; // files named after it would never be found or deleted again
+        String imageUri = recipe.getImageUri();
+        String key = id + "-" + imageUri;
+        if (!requested.add(key)) return;
+        Context appContext = context.getApplicationContext();
+        worker.execute(() -> {
+            deleteStale(appContext, id, imageUri);
+            if (imageUri == null || imageUri.isEmpty()) {
+                requested.remove(key); // the photo may be removed again after another is set
+                return;
+            }
+            try {
+                write(appContext, id, Uri.parse(imageUri));
+                requested.remove(key);
+            } catch (Exception e) {
+                // Stays in requested, so a photo that is gone isn't retried on every bind
+                e.printStackTrace(); // Logs to Logcat
+            }
+        });
+    }
+
+    public static void invalidate(Context context, long id) {
+        Context appContext = context.getApplicationContext();
+        removeReady(id, null);
+        worker.execute(() -> deleteStale(appContext, id, null));
+    }
+
+    private static void scanOnce(Context context) {
+        synchronized (RecipeThumbnails.class) {
+            if (scanned) return;
+            scanned = true;
+        }
+        Context appContext = context.getApplicationContext();
+        worker.execute(() -> {
+            String[] names = directory(appContext).list();
+            if (names == null) return;
+            for (String name : names) {
+                if (name.startsWith("0-")) {
+                    // Left by earlier builds for recipes that had no id yet
+                    new File(directory(appContext), name).delete();
+                } else if (!name.endsWith(".tmp")) {
+                    ready.add(name);
+                }
+            }
+            Log.i(TAG, ready.size() + " thumbnails on disk");
+        });
+    }
+
+    private static void write(Context context, long id, Uri uri) throws IOException {
+        // Rows bound before the first scan finished ask for thumbnails that may already exist
+        File directory = directory(context);
+        boolean missing = false;
+        for (Size size : Size.values()) {
+            String name = fileName(id, uri.toString(), size);
+            if (new File(directory, name).isFile()) {
+                ready.add(name);
+            } else {
+                missing = true;
+            }
+        }
+        if (!missing) return;
+
+        ContentResolver resolver = context.getContentResolver();
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + uri);
+        }
+        int rotation;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            rotation = rotationOf(new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL));
+        }
+        boolean sideways = rotation == 90 || rotation == 270;
+        int width = sideways ? bounds.outHeight : bounds.outWidth;
+        int height = sideways ? bounds.outWidth : bounds.outHeight;
+
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        // Decode once at the largest size needed, then scale down for each size
+        int maxWidth = 0;
+        int maxHeight = 0;
+        for (Size size : Size.values()) {
+            maxWidth = Math.max(maxWidth, targetWidth(size, metrics));
+            maxHeight = Math.max(maxHeight, Math.round(size.heightDp * metrics.density));
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(width, height, maxWidth, maxHeight);
+        Bitmap decoded;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Couldn't decode " + uri);
+        }
+        if (rotation != 0) {
+            Matrix matrix = new Matrix();
+            matrix.postRotate(rotation);
+            Bitmap rotated = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+            decoded.recycle();
+            decoded = rotated;
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create " + directory);
+        }
+        for (Size size : Size.values()) {
+            int targetWidth = targetWidth(size, metrics);
+            int targetHeight = Math.round(size.heightDp * metrics.density);
+            // Covers the target box like centerCrop would, the crop itself is left to the view
+            float scale = Math.min(1f, Math.max((float) targetWidth / decoded.getWidth(),
+                    (float) targetHeight / decoded.getHeight()));
+            Bitmap scaled = scale < 1f
+                    ? Bitmap.createScaledBitmap(decoded, Math.round(decoded.getWidth() * scale),
+                            Math.round(decoded.getHeight() * scale), true)
+                    : decoded;
+
+            String name = fileName(id, uri.toString(), size);
+            File temp = new File(directory, name + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                scaled.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+            if (scaled != decoded) {
+                scaled.recycle();
+            }
+            if (!temp.renameTo(new File(directory, name))) {
+                temp.delete();
+                throw new IOException("Couldn't write " + name);
+            }
+            ready.add(name);
+        }
+        decoded.recycle();
+    }
+
+    // Deletes the recipe's thumbnails that aren't for keepImageUri, all of them if it is null
+    private static void deleteStale(Context context, long id, String keepImageUri) {
+        removeReady(id, keepImageUri);
+        String prefix = id + "-";
+        File[] files = directory(context).listFiles((dir, name) -> name.startsWith(prefix));
+        if (files == null) return;
+        for (File file : files) {
+            if (!isFor(file.getName(), id, keepImageUri)) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void removeReady(long id, String keepImageUri) {
+        String prefix = id + "-";
+        ready.removeIf(name -> name.startsWith(prefix) && !isFor(name, id, keepImageUri));
+    }
+
+    private static boolean isFor(String name, long id, String imageUri) {
+        if (imageUri == null || imageUri.isEmpty()) return false;
+        for (Size size : Size.values()) {
+            if (name.equals(fileName(id, imageUri, size))) return true;
+        }
+        return false;
+    }
+
+    private static int rotationOf(int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90: return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180: return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270: return 270;
+            default: return 0;
+        }
+    }
+
+    // Largest power of two that keeps the decoded image at least as big as the target box
+    static int sampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int targetWidth(Size size, DisplayMetrics metrics) {
+        return size.widthDp > 0 ? Math.round(size.widthDp * metrics.density) : metrics.widthPixels;
+    }
+
+    private static String fileName(long id, String imageUri, Size size) {
+        return id + "-" + Integer.toHexString(imageUri.hashCode()) + "-" + size.name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    private static File directory(Context context) {
+        return new File(context.getCacheDir(), DIRECTORY);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cookingbook;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Coalesces recipe writes. Mutations only mark the store dirty; the flush task runs once per
+// window on a single writer thread and persists everything that piled up in the meantime.
+public class SaveScheduler {
+
+    public static final long DEFAULT_WINDOW_MS = 300;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "recipe-writer"));
+    private final Runnable flushTask;
+    private final long windowMs;
+    private ScheduledFuture<?> pendingFlush;
+
+    public SaveScheduler(Runnable flushTask, long windowMs) {
+        this.flushTask = flushTask;
+        this.windowMs = windowMs;
+    }
+
+    // The first mutation in a window schedules the flush, later ones ride along with it
+    public synchronized void markDirty() {
+        if (pendingFlush == null) {
+            pendingFlush = writer.schedule(this::runFlush, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes pending work right away instead of waiting for the window to close
+    public synchronized Future<?> flushAsync() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        return writer.submit(this::runFlush);
+    }
+
+    // Blocks until everything marked dirty before this call is on disk
+    public void flush() throws InterruptedException, ExecutionException {
+        flushAsync().get();
+    }
+
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException {
+        try {
+            flushAsync().get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    // Other disk work runs on the writer thread as well, ordered after any flush already queued
+    public <T> Future<T> submit(Callable<T> task) {
+        return writer.submit(task);
+    }
+
+    public void execute(Runnable task) {
+        writer.execute(task);
+    }
+
+    private void runFlush() {
+        synchronized (this) {
+            pendingFlush = null;
+        }
+        flushTask.run();
+    }
+}
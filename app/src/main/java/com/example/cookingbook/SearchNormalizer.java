@@ -0,0 +1,116 @@
+package com.example.cookingbook;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+
+// Canonical form of recipe text for searching: lower case, accents folded ("Crème" -> "creme"),
+// runs of whitespace collapsed to a single space.
+public class SearchNormalizer {
+
+    // Measures that may follow the amount at the start of an ingredient line
+    private static final HashSet<String> UNITS = new HashSet<>(Arrays.asList(
+            "cup", "tbsp", "tsp", "tablespoon", "teaspoon", "g", "gram", "kg", "mg", "ml", "l", "liter",
+            "litre", "oz", "ounce", "lb", "pound", "pinch", "dash", "handful", "can", "jar", "pack",
+            "package", "slice", "clove", "bunch", "piece", "stick", "sprig"));
+    // Size and preparation words that don't change what the ingredient is
+    private static final HashSet<String> DESCRIPTORS = new HashSet<>(Arrays.asList(
+            "large", "medium", "small", "fresh", "ripe", "chopped", "diced", "minced", "sliced",
+            "grated", "peeled", "crushed", "melted", "softened", "whole", "optional", "to", "taste"));
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+
+        boolean ascii = true;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                ascii = false;
+                break;
+            }
+        }
+        if (!ascii) {
+            // Decompose and drop the combining marks, what's left is the base letter
+            text = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        }
+
+        StringBuilder out = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(c);
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // Splits normalized text into words of letters and digits
+    public static String[] tokenize(String normalized) {
+        if (normalized == null || normalized.isEmpty()) return new String[0];
+        ArrayList<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    // What an ingredient line is made of, without amount, unit and preparation and in singular:
+    // "2 cups of Flour" gives "flour", "3 large eggs" gives "egg", "Garlic, minced" gives
+    // "garlic". Empty if nothing else is left.
+    public static String ingredientKey(String ingredient) {
+        String[] words = tokenize(normalize(ingredient));
+        int start = 0;
+        while (start < words.length && isNumber(words[start])) {
+            start++;
+        }
+        if (start < words.length && start > 0 && UNITS.contains(singular(words[start]))) {
+            start++;
+            if (start < words.length && words[start].equals("of")) {
+                start++;
+            }
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (int i = start; i < words.length; i++) {
+            if (DESCRIPTORS.contains(words[i]) || isNumber(words[i])) continue;
+            if (key.length() > 0) key.append(' ');
+            key.append(singular(words[i]));
+        }
+        return key.toString();
+    }
+
+    private static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    // Plain English plural rules, good enough to line up "tomatoes" with "tomato"
+    private static String singular(String word) {
+        if (word.length() <= 3) return word;
+        if (word.endsWith("ies")) return word.substring(0, word.length() - 3) + "y";
+        if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+}
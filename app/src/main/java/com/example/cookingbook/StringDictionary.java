@@ -0,0 +1,28 @@
+package com.example.cookingbook;
+
+import java.util.HashMap;
+
+// Maps equal strings to one shared instance. Recipes decoded from JSON carry a fresh String for
+// every "salt" and "olive oil"; passing them through one dictionary while loading leaves a
+// single copy of each on the heap.
+public class StringDictionary {
+
+    private final HashMap<String, String> strings = new HashMap<>();
+    private int lookups;
+
+    public String intern(String value) {
+        if (value == null) return null;
+        lookups++;
+        String shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    // Lookups that handed back an existing instance, each one a String the heap no longer holds
+    public int getDuplicatesRemoved() {
+        return lookups - strings.size();
+    }
+}
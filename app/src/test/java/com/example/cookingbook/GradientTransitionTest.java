@@ -0,0 +1,44 @@
+package com.example.cookingbook;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class GradientTransitionTest {
+
+    @Test
+    public void colorsAt_interpolatesEachChannel() {
+        GradientTransition transition = new GradientTransition();
+        transition.set(0xFF000000, 0x00FF0080, 0xFFFFFFFF, 0xFF00FF00);
+
+        assertArrayEquals(new int[]{0xFF000000, 0x00FF0080}, transition.colorsAt(0f).clone());
+        assertArrayEquals(new int[]{0xFFFFFFFF, 0xFF00FF00}, transition.colorsAt(1f).clone());
+        assertArrayEquals(new int[]{0xFF7F7F7F, 0x7F7F7F40}, transition.colorsAt(0.5f).clone());
+    }
+
+    // The animation runs colorsAt once per frame, 500 ms is 30 frames at 60 Hz and 60 at 120 Hz
+    @Test
+    public void colorsAt_allocatesNothingPerFrame() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        GradientTransition transition = new GradientTransition();
+        transition.set(0xFFFF6B6B, 0xFFFFD93D, 0xFF2E7D32, 0xFF81C784);
+        int checksum = 0;
+        for (int frame = 0; frame <= 60; frame++) { // warm up
+            checksum += transition.colorsAt(frame / 60f)[0];
+        }
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int frame = 0; frame <= 60; frame++) {
+            checksum += transition.colorsAt(frame / 60f)[1];
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertNotEquals(0, checksum);
+        assertEquals(0, allocated);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.cookingbook;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MappedRecipeCatalogTest {
+
+    @Test
+    public void get_decodesSingleRecords() throws Exception {
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            recipes.add(new Recipe("Recipe " + i, i % 10 == 0 ? null : "Description " + i,
+                    i % 2 == 0 ? "content://media/" + i : null, i % 3 == 0 ? RecipeCategory.DESSERTS : RecipeCategory.SALADS,
+                    new ArrayList<>(Arrays.asList("salt", "ingredient " + i)),
+                    i % 2 == 0, i % 3 == 0, i % 5 == 0, i % 7 == 0));
+            recipes.get(i).setId(1000L + i * 1000L);
+        }
+        File file = File.createTempFile("catalog", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            new RecipeBinaryWriter(out).write(recipes);
+        }
+
+        MappedRecipeCatalog catalog = MappedRecipeCatalog.open(file);
+
+        assertNotNull(catalog);
+        assertEquals(recipes.size(), catalog.size());
+        Gson gson = new Gson();
+        for (int i : new int[]{0, 1, 250, 499}) {
+            assertEquals(gson.toJson(recipes.get(i)), gson.toJson(catalog.get(i)));
+            assertEquals(recipes.get(i).getTitle(), catalog.getTitle(i));
+            assertEquals(recipes.get(i).getId(), catalog.get(i).getId());
+        }
+    }
+
+    @Test
+    public void open_returnsNullForEmptyOrLegacyFiles() throws Exception {
+        File file = File.createTempFile("catalog", ".json");
+        file.deleteOnExit();
+        assertNull(MappedRecipeCatalog.open(file));
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("[]".getBytes("UTF-8"));
+        }
+        assertNull(MappedRecipeCatalog.open(file));
+    }
+}
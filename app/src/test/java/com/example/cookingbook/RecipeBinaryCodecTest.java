@@ -0,0 +1,77 @@
+package com.example.cookingbook;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RecipeBinaryCodecTest {
+
+    // Same shape Gson produced for the SharedPreferences "recipes" value
+    private static final String LEGACY_JSON = "["
+            + "{\"title\":\"Pancakes\",\"description\":\"Fluffy, with maple syrup\",\"imageUri\":\"content://media/external/images/media/42\","
+            + "\"category\":\"Desserts\",\"ingredients\":[\"2 eggs\",\"1 cup flour\",\"salt\"],"
+            + "\"isVegetarian\":true,\"isVegan\":false,\"isGlutenFree\":false,\"hasMeat\":false},"
+            + "{\"title\":\"Crème brûlée\",\"description\":\"\",\"category\":\"Desserts\",\"ingredients\":[],"
+            + "\"isVegetarian\":true,\"isVegan\":false,\"isGlutenFree\":true,\"hasMeat\":false},"
+            + "{\"title\":\"Chicken soup\",\"description\":\"Grandma's 🍲\",\"category\":\"Main Course\","
+            + "\"ingredients\":[\"salt\",\"2 eggs\",\"chicken\"],"
+            + "\"isVegetarian\":false,\"isVegan\":false,\"isGlutenFree\":true,\"hasMeat\":true}"
+            + "]";
+
+    private final Gson gson = new Gson();
+    private final Type listType = new TypeToken<ArrayList<Recipe>>() {}.getType();
+
+    @Test
+    public void roundTrip_matchesLegacyJson() throws Exception {
+        ArrayList<Recipe> recipes = gson.fromJson(LEGACY_JSON, listType);
+
+        ArrayList<Recipe> decoded = decode(encode(recipes));
+
+        assertEquals(gson.toJson(recipes), gson.toJson(decoded));
+    }
+
+    @Test
+    public void repeatedStrings_areShared() throws Exception {
+        ArrayList<Recipe> recipes = gson.fromJson(LEGACY_JSON, listType);
+
+        ArrayList<Recipe> decoded = decode(encode(recipes));
+
+        assertSame(decoded.get(0).getIngredients().get(2), decoded.get(2).getIngredients().get(0));
+        assertSame(decoded.get(0).getCategory(), decoded.get(1).getCategory());
+    }
+
+    @Test
+    public void encoding_isSmallerThanJson() throws Exception {
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            recipes.add(new Recipe("Recipe " + i, "Tasty dish number " + i, null, RecipeCategory.MAIN_COURSE,
+                    new ArrayList<>(Arrays.asList("salt", "olive oil", "2 eggs")),
+                    i % 2 == 0, i % 3 == 0, i % 5 == 0, i % 7 == 0));
+        }
+
+        int jsonSize = gson.toJson(recipes).getBytes("UTF-8").length;
+        int binarySize = encode(recipes).length;
+
+        assertTrue("binary " + binarySize + " vs json " + jsonSize, binarySize * 3 < jsonSize);
+        assertEquals(gson.toJson(recipes), gson.toJson(decode(encode(recipes))));
+    }
+
+    private static byte[] encode(ArrayList<Recipe> recipes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RecipeBinaryWriter(out).write(recipes);
+        return out.toByteArray();
+    }
+
+    private static ArrayList<Recipe> decode(byte[] bytes) throws Exception {
+        return new RecipeBinaryReader(new ByteArrayInputStream(bytes)).readAll();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.cookingbook;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecipeFacetIndexTest {
+
+    private RecipeFacetIndex index;
+
+    @Before
+    public void setUp() {
+        index = new RecipeFacetIndex();
+        index.add(recipe(1, RecipeCategory.SALADS, true, true, true, false));
+        index.add(recipe(2, RecipeCategory.SALADS, true, false, false, false));
+        index.add(recipe(3, RecipeCategory.MAIN_COURSE, false, false, true, true));
+        index.add(recipe(4, RecipeCategory.DESSERTS, true, false, true, false));
+    }
+
+    @Test
+    public void select_combinesCategoryAndDietaryFlags() {
+        assertEquals(bits(1, 2, 3, 4), index.select(null, 0));
+        assertEquals(bits(1, 2), index.select(RecipeCategory.SALADS, 0));
+        assertEquals(bits(1, 3, 4), index.select(null, Recipe.GLUTEN_FREE));
+        assertEquals(bits(1), index.select(RecipeCategory.SALADS, Recipe.VEGETARIAN | Recipe.GLUTEN_FREE));
+        assertEquals(bits(), index.select(RecipeCategory.BEVERAGES, 0));
+    }
+
+    @Test
+    public void updateAndRemove_keepSetsCurrent() {
+        index.update(recipe(2, RecipeCategory.DESSERTS, false, false, true, false));
+        assertEquals(bits(1), index.select(RecipeCategory.SALADS, 0));
+        assertEquals(bits(1, 4), index.select(null, Recipe.VEGETARIAN));
+        assertEquals(bits(2, 4), index.select(RecipeCategory.DESSERTS, Recipe.GLUTEN_FREE));
+
+        index.remove(4);
+        assertEquals(bits(2), index.select(RecipeCategory.DESSERTS, 0));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void select_returnsACopy() {
+        index.select(RecipeCategory.SALADS, 0).clear();
+        assertEquals(bits(1, 2), index.select(RecipeCategory.SALADS, 0));
+    }
+
+    @Test
+    public void queryRun_agreesWithScanOnSparseIds() {
+        RecipeFacetIndex facets = new RecipeFacetIndex();
+        RecipeSearchIndex words = new RecipeSearchIndex();
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Gaps from deleted recipes
+            Recipe recipe = recipe(i * 3 + (i % 3), i % 5 == 0 ? RecipeCategory.SALADS : RecipeCategory.DESSERTS,
+                    i % 2 == 0, false, i % 3 == 0, false);
+            recipes.add(recipe);
+            facets.add(recipe);
+            words.add(recipe);
+        }
+        // Added after the snapshot was taken, only the indexes know it
+        Recipe added = recipe(10_000, RecipeCategory.SALADS, true, false, true, false);
+        facets.add(added);
+        words.add(added);
+
+        for (RecipeQuery query : new RecipeQuery[]{
+                new RecipeQuery("", RecipeCategory.SALADS, 0),
+                new RecipeQuery("", null, Recipe.VEGETARIAN | Recipe.GLUTEN_FREE),
+                new RecipeQuery("recipe 12", RecipeCategory.SALADS, 0)}) {
+            ArrayList<Recipe> expected = new ArrayList<>();
+            for (Recipe recipe : recipes) {
+                if (query.matches(recipe)) expected.add(recipe);
+            }
+            List<Recipe> found = query.run(recipes, words, facets);
+            assertEquals(expected.size(), found.size());
+            assertTrue(found.containsAll(expected));
+        }
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet set = new BitSet();
+        for (int id : ids) {
+            set.set(id);
+        }
+        return set;
+    }
+
+    private static Recipe recipe(long id, RecipeCategory category, boolean vegetarian, boolean vegan,
+                                 boolean glutenFree, boolean meat) {
+        Recipe recipe = new Recipe("Recipe " + id, "", null, category, new ArrayList<>(),
+                vegetarian, vegan, glutenFree, meat);
+        recipe.setId(id);
+        return recipe;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RecipeFilterEngineTest {
+
+    @Test
+    public void filter_keepsListOrderAcrossChunks() {
+        ArrayList<Recipe> recipes = recipes(10_000);
+        ArrayList<Recipe> expected = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            if (recipe.getId() % 7 == 0) expected.add(recipe);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RecipeFilterEngine engine = new RecipeFilterEngine(pool, 100);
+            assertEquals(expected, engine.filter(recipes, recipe -> recipe.getId() % 7 == 0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void filter_returnsNullWhenInterrupted() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RecipeFilterEngine engine = new RecipeFilterEngine(pool, 100);
+            Thread.currentThread().interrupt();
+            List<Recipe> results = engine.filter(recipes(1_000), recipe -> true);
+            assertTrue(Thread.interrupted());
+            assertNull(results);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ArrayList<Recipe> recipes(int count) {
+        ArrayList<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Recipe recipe = new Recipe("Recipe " + i, "", null, RecipeCategory.OTHER);
+            recipe.setId(i);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.cookingbook;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecipeIngredientIndexTest {
+
+    private RecipeIngredientIndex index;
+
+    @Before
+    public void setUp() {
+        index = new RecipeIngredientIndex();
+        index.add(recipe(1, "2 cups flour", "3 large eggs", "1 cup milk"));
+        index.add(recipe(2, "Tomatoes", "Garlic, minced", "olive oil", "pasta"));
+        index.add(recipe(3, "4 eggs", "salt"));
+    }
+
+    @Test
+    public void ingredientKey_dropsAmountsUnitsAndPlurals() {
+        assertEquals("flour", SearchNormalizer.ingredientKey("2 cups of Flour"));
+        assertEquals("egg", SearchNormalizer.ingredientKey("3 large eggs"));
+        assertEquals("garlic", SearchNormalizer.ingredientKey("Garlic, minced"));
+        assertEquals("tomato", SearchNormalizer.ingredientKey("tomatoes"));
+        assertEquals("coconut milk", SearchNormalizer.ingredientKey("1 can coconut milk"));
+        assertEquals("", SearchNormalizer.ingredientKey("2"));
+    }
+
+    @Test
+    public void query_ordersByFewestMissing() {
+        List<RecipeIngredientIndex.Match> matches = index.query(Arrays.asList("Eggs", "salt", "flour"), 1);
+
+        assertEquals(2, matches.size());
+        assertEquals(3, matches.get(0).id);
+        assertEquals(0, matches.get(0).missing);
+        assertEquals(1, matches.get(1).id);
+        assertEquals(1, matches.get(1).missing);
+        assertEquals(2, matches.get(1).matched);
+    }
+
+    @Test
+    public void query_onlyReturnsRecipesSharingAnIngredient() {
+        assertTrue(index.query(Arrays.asList("chocolate"), 10).isEmpty());
+        assertEquals(1, index.query(Arrays.asList("pasta", "garlic"), 2).size());
+        assertTrue(index.query(Arrays.asList("pasta", "garlic"), 1).isEmpty());
+    }
+
+    @Test
+    public void updateAndRemove_keepCountsCurrent() {
+        index.update(recipe(1, "flour", "eggs"));
+        assertEquals(1, index.query(Arrays.asList("flour", "egg"), 0).get(0).id);
+
+        index.remove(3);
+        assertEquals(1, index.query(Arrays.asList("egg"), 1).size());
+        assertEquals(2, index.size());
+    }
+
+    private static Recipe recipe(long id, String... ingredients) {
+        Recipe recipe = new Recipe("Recipe " + id, "", null, RecipeCategory.OTHER,
+                new ArrayList<>(Arrays.asList(ingredients)), false, false, false, false);
+        recipe.setId(id);
+        return recipe;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RecipeJournalTest {
+
+    private static Recipe recipe(long id, String title) {
+        Recipe recipe = new Recipe(title, "Description of " + title, null, RecipeCategory.SALADS,
+                new ArrayList<>(Arrays.asList("salt", "pepper")), false, true, false, false);
+        recipe.setId(id);
+        return recipe;
+    }
+
+    private static File newDir() throws Exception {
+        File dir = Files.createTempDirectory("journal").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static ArrayList<Recipe> load(File dir) throws Exception {
+        RecipeJournal journal = new RecipeJournal(dir);
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        journal.readSnapshot(recipes::add);
+        journal.replayJournal(recipes, recipe -> { });
+        return recipes;
+    }
+
+    private static ArrayList<String> titles(ArrayList<Recipe> recipes) {
+        ArrayList<String> titles = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            titles.add(recipe.getTitle());
+        }
+        return titles;
+    }
+
+    @Test
+    public void replayJournal_appliesRecordsOnTopOfSnapshot() throws Exception {
+        File dir = newDir();
+        RecipeJournal journal = new RecipeJournal(dir);
+        journal.compact(new ArrayList<>(Arrays.asList(recipe(1, "Soup"), recipe(2, "Salad"))));
+        journal.append(Arrays.asList(
+                journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 3, recipe(3, "Cake"))),
+                journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 1, recipe(1, "Tomato soup"))),
+                journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_DELETE, 2, null))));
+
+        RecipeJournal reopened = new RecipeJournal(dir);
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        reopened.readSnapshot(recipes::add);
+        int replayed = reopened.replayJournal(recipes, recipe -> { });
+
+        assertEquals(3, replayed);
+        assertEquals(Arrays.asList("Tomato soup", "Cake"), titles(recipes));
+    }
+
+    @Test
+    public void replayJournal_cutsTornTailSoLaterAppendsSurvive() throws Exception {
+        File dir = newDir();
+        RecipeJournal journal = new RecipeJournal(dir);
+        journal.compact(new ArrayList<>(Collections.singletonList(recipe(1, "Soup"))));
+        journal.append(Collections.singletonList(
+                journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 2, recipe(2, "Salad")))));
+        // A crash in the middle of the next append
+        String torn = journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 3, recipe(3, "Cake")));
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "recipes.journal"), true)) {
+            out.write(torn.substring(0, torn.length() / 2).getBytes("UTF-8"));
+        }
+
+        // Next session: load, then add a recipe
+        RecipeJournal next = new RecipeJournal(dir);
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        next.readSnapshot(recipes::add);
+        assertEquals(1, next.replayJournal(recipes, recipe -> { }));
+        next.append(Collections.singletonList(
+                next.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 4, recipe(4, "Bread")))));
+
+        assertEquals(Arrays.asList("Soup", "Salad", "Bread"), titles(load(dir)));
+    }
+
+    @Test
+    public void replayJournal_keepsLastRecordMissingItsNewline() throws Exception {
+        File dir = newDir();
+        RecipeJournal journal = new RecipeJournal(dir);
+        String record = journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 1, recipe(1, "Soup")));
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "recipes.journal"))) {
+            out.write(record.getBytes("UTF-8"));
+        }
+
+        RecipeJournal next = new RecipeJournal(dir);
+        next.replayJournal(new ArrayList<>(), recipe -> { });
+        next.append(Collections.singletonList(
+                next.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 2, recipe(2, "Salad")))));
+
+        assertEquals(Arrays.asList("Soup", "Salad"), titles(load(dir)));
+    }
+
+    @Test
+    public void replayJournal_skipsDamagedLineInTheMiddle() throws Exception {
+        File dir = newDir();
+        RecipeJournal journal = new RecipeJournal(dir);
+        String first = journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 1, recipe(1, "Soup")));
+        String last = journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, 2, recipe(2, "Salad")));
+        File file = new File(dir, "recipes.journal");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write((first + "\n{\"op\":\"put\",\"id\":\n" + last + "\n").getBytes("UTF-8"));
+        }
+        long length = file.length();
+
+        RecipeJournal next = new RecipeJournal(dir);
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        assertEquals(2, next.replayJournal(recipes, recipe -> { }));
+
+        assertEquals(Arrays.asList("Soup", "Salad"), titles(recipes));
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    public void hasBinarySnapshot_tellsCompactedFromJsonSnapshots() throws Exception {
+        File dir = newDir();
+        RecipeJournal journal = new RecipeJournal(dir);
+        assertFalse(journal.hasBinarySnapshot());
+
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "recipes.snapshot"))) {
+            out.write("[{\"title\":\"Soup\",\"category\":\"Salads\"}]".getBytes("UTF-8"));
+        }
+        assertFalse(journal.hasBinarySnapshot());
+
+        journal.compact(new ArrayList<>(Collections.singletonList(recipe(1, "Soup"))));
+        assertTrue(journal.hasBinarySnapshot());
+    }
+
+    @Test
+    public void migrate_writesLegacyListAsSnapshot() throws Exception {
+        File dir = newDir();
+        // Recipes saved to SharedPreferences before ids existed
+        String legacy = "[{\"title\":\"Soup\",\"category\":\"Salads\",\"ingredients\":[\"water\"]},"
+                + "{\"title\":\"Salad\",\"category\":\"Desserts\",\"ingredients\":[]}]";
+
+        RecipeJournal journal = new RecipeJournal(dir);
+        assertFalse(journal.exists());
+        journal.migrate(legacy);
+
+        assertTrue(journal.exists());
+        assertFalse(journal.hasJournal());
+        ArrayList<Recipe> recipes = load(dir);
+        assertEquals(Arrays.asList("Soup", "Salad"), titles(recipes));
+        assertEquals(Collections.singletonList("water"), recipes.get(0).getIngredients());
+        assertEquals(0, recipes.get(0).getId());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RecipePageSourceTest {
+
+    @Test
+    public void get_keepsOnlyTheWindowAroundTheLastPage() {
+        AtomicInteger loads = new AtomicInteger();
+        RecipePageSource source = new RecipePageSource((start, count) -> {
+            loads.incrementAndGet();
+            Recipe[] page = new Recipe[count];
+            for (int i = 0; i < count; i++) {
+                page[i] = new Recipe("Recipe " + (start + i), "", null, RecipeCategory.OTHER);
+            }
+            return page;
+        }, 10_000, 10, 2);
+
+        for (int position = 0; position < source.size(); position++) {
+            assertEquals("Recipe " + position, source.get(position).getTitle());
+            assertTrue(source.getResidentPages() <= 5);
+        }
+        assertEquals(1000, loads.get());
+
+        // Scrolling back within the window decodes nothing, further back reloads
+        source.get(9_975);
+        assertEquals(1000, loads.get());
+        source.get(5);
+        assertEquals(1001, loads.get());
+        assertEquals(1, source.getResidentPages());
+    }
+
+    @Test
+    public void get_shortensTheLastPage() {
+        RecipePageSource source = new RecipePageSource((start, count) -> {
+            assertTrue(start + count <= 25);
+            return new Recipe[count];
+        }, 25, 10, 1);
+        assertNull(source.get(24));
+    }
+}
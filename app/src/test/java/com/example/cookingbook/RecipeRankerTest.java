@@ -0,0 +1,85 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RecipeRankerTest {
+
+    @Test
+    public void topK_putsTitleMatchesAndRareWordsFirst() {
+        RecipeSearchIndex index = new RecipeSearchIndex();
+        Recipe inDescription = recipe(1, "Weeknight stew", "Goes well with chicken", "beef");
+        Recipe inIngredients = recipe(2, "Rice bowl", "Quick", "chicken", "rice");
+        Recipe inTitle = recipe(3, "Chicken curry", "Spicy", "chicken", "curry paste");
+        for (Recipe recipe : Arrays.asList(inDescription, inIngredients, inTitle)) {
+            index.add(recipe);
+        }
+
+        String[] words = RecipeSearchIndex.tokenize("chicken");
+        List<Recipe> ranked = RecipeRanker.topK(Arrays.asList(inDescription, inIngredients, inTitle),
+                words, index.statistics(words), 3);
+
+        assertEquals(Arrays.asList(inTitle, inIngredients, inDescription), ranked);
+    }
+
+    @Test
+    public void score_countsTheWordsATypoWasTakenFor() {
+        RecipeSearchIndex index = new RecipeSearchIndex();
+        Recipe inTitle = recipe(1, "Chicken curry", "Spicy", "chicken", "curry paste");
+        Recipe inIngredients = recipe(2, "Rice bowl", "Quick", "chicken", "rice");
+        Recipe unrelated = recipe(3, "Lemon tart", "Sweet", "lemon");
+        for (Recipe recipe : Arrays.asList(inTitle, inIngredients, unrelated)) {
+            index.add(recipe);
+        }
+
+        String[] words = RecipeSearchIndex.tokenize("chiken");
+        RecipeSearchIndex.Hits hits = index.find(words);
+
+        assertArrayEquals(new long[]{1, 2}, hits.ids);
+        assertEquals(Arrays.asList(inTitle, inIngredients),
+                RecipeRanker.topK(Arrays.asList(inIngredients, inTitle), words, hits.statistics, 2));
+        assertEquals(0, RecipeRanker.score(unrelated, words, hits.statistics), 0);
+    }
+
+    @Test
+    public void topK_agreesWithAFullSort() {
+        Random random = new Random(7);
+        String[] vocabulary = {"tomato", "basil", "garlic", "onion", "pepper", "lemon", "thyme", "salt"};
+        RecipeSearchIndex index = new RecipeSearchIndex();
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            StringBuilder title = new StringBuilder();
+            ArrayList<String> ingredients = new ArrayList<>();
+            for (int w = 0; w < 1 + random.nextInt(4); w++) {
+                title.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            for (int w = 0; w < 1 + random.nextInt(6); w++) {
+                ingredients.add(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            Recipe recipe = recipe(i, title.toString(), "", ingredients.toArray(new String[0]));
+            recipes.add(recipe);
+            index.add(recipe);
+        }
+
+        String[] words = RecipeSearchIndex.tokenize("tomato garlic");
+        RecipeRanker.Statistics statistics = index.statistics(words);
+        ArrayList<Recipe> sorted = new ArrayList<>(recipes);
+        sorted.sort(Comparator.comparingDouble((Recipe r) -> -RecipeRanker.score(r, words, statistics)));
+
+        assertEquals(sorted.subList(0, 20), RecipeRanker.topK(recipes, words, statistics, 20));
+    }
+
+    private static Recipe recipe(long id, String title, String description, String... ingredients) {
+        Recipe recipe = new Recipe(title, description, null, RecipeCategory.OTHER,
+                new ArrayList<>(Arrays.asList(ingredients)), false, false, false, false);
+        recipe.setId(id);
+        return recipe;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RecipeRowTextTest {
+
+    @Test
+    public void of_buildsPreviewAndFlags() {
+        Recipe recipe = new Recipe("Pancakes", "Fluffy", null, RecipeCategory.DESSERTS,
+                new ArrayList<>(Arrays.asList("flour", "eggs", "milk", "sugar", "butter")),
+                true, false, false, false);
+
+        RecipeRowText text = RecipeRowText.of(recipe);
+
+        assertEquals("Ingredients: flour, eggs, milk, +2 more", text.ingredientsPreview.toString());
+        assertEquals("Fluffy", text.description.toString());
+        assertEquals(Recipe.VEGETARIAN, text.dietaryFlags);
+        assertNull(RecipeRowText.ingredientsPreview(new ArrayList<>()));
+    }
+
+    @Test
+    public void truncate_keepsWordsWhole() {
+        assertEquals("short", RecipeRowText.truncate("short", 10));
+        assertEquals("one two…", RecipeRowText.truncate("one two three", 10));
+        assertEquals("abcdefghij…", RecipeRowText.truncate("abcdefghijklmnop", 10));
+        assertEquals("", RecipeRowText.truncate(null, 10));
+    }
+}
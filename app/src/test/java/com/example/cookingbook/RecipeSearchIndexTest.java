@@ -0,0 +1,90 @@
+package com.example.cookingbook;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RecipeSearchIndexTest {
+
+    private RecipeSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new RecipeSearchIndex();
+        index.add(recipe(1, "Chicken soup", "Warm and cozy", "chicken", "carrots"));
+        index.add(recipe(2, "Pancakes", "Sunday breakfast", "flour", "2 eggs"));
+        index.add(recipe(3, "Chickpea curry", "Spicy", "chickpeas", "coconut milk"));
+    }
+
+    @Test
+    public void search_matchesWordPrefixesAcrossFields() {
+        assertArrayEquals(new long[]{1, 3}, index.search("chick"));
+        assertArrayEquals(new long[]{2}, index.search("EGG"));
+        assertArrayEquals(new long[]{1}, index.search("soup chick"));
+        assertArrayEquals(new long[0], index.search("soup pancake"));
+    }
+
+    @Test
+    public void updateAndRemove_keepPostingsCurrent() {
+        index.update(recipe(1, "Tomato soup", "Warm and cozy", "tomatoes"));
+        assertArrayEquals(new long[]{3}, index.search("chick"));
+        assertArrayEquals(new long[]{1}, index.search("tomato"));
+
+        index.remove(3);
+        assertArrayEquals(new long[0], index.search("chick"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void search_foldsAccentsAndCase() {
+        index.add(recipe(4, "Crème  Brûlée", "", "cream"));
+        assertArrayEquals(new long[]{4}, index.search("creme brul"));
+        assertArrayEquals(new long[]{4}, index.search("CRÈME"));
+    }
+
+    @Test
+    public void search_toleratesTyposInTitlesAndIngredients() {
+        index.add(recipe(4, "Lasagna", "Layered", "lasagna sheets", "ricotta"));
+        assertArrayEquals(new long[]{1}, index.search("chiken soup"));
+        assertArrayEquals(new long[]{1, 3}, index.search("chickn"));
+        assertArrayEquals(new long[]{4}, index.search("lasgna"));
+        assertArrayEquals(new long[]{4}, index.search("ricota"));
+        // Too short to guess at, and description words are not corrected towards
+        assertArrayEquals(new long[0], index.search("sop"));
+        assertArrayEquals(new long[0], index.search("layerd"));
+    }
+
+    @Test
+    public void search_keystrokesOverBroadPrefixMatchLikeWholeWords() {
+        // Enough recipes with a word starting with "c" that next to "chick" it is checked per recipe
+        for (int i = 0; i < 100; i++) {
+            index.add(recipe(10 + i, "Crumble " + (char) ('a' + i % 26) + (char) ('a' + i / 26), "", "cx" + i));
+        }
+        assertEquals(102, index.search("c").length);
+        assertArrayEquals(new long[]{1, 3}, index.search("c chick"));
+        assertArrayEquals(new long[]{1, 3}, index.search("ch"));
+        assertArrayEquals(new long[]{1, 3}, index.search("chi"));
+        assertArrayEquals(new long[]{3}, index.search("chickp"));
+
+        index.add(recipe(200, "Chickpea salad", "", "chickpeas"));
+        assertArrayEquals(new long[]{3, 200}, index.search("chickp"));
+    }
+
+    @Test
+    public void matches_agreesWithIndex() {
+        Recipe soup = recipe(1, "Chicken soup", "Warm and cozy", "chicken", "carrots");
+        assertTrue(RecipeSearchIndex.matches(soup, RecipeSearchIndex.tokenize("co chi")));
+        assertFalse(RecipeSearchIndex.matches(soup, RecipeSearchIndex.tokenize("icken")));
+    }
+
+    private static Recipe recipe(long id, String title, String description, String... ingredients) {
+        Recipe recipe = new Recipe(title, description, null, RecipeCategory.OTHER,
+                new ArrayList<>(Arrays.asList(ingredients)), false, false, false, false);
+        recipe.setId(id);
+        return recipe;
+    }
+}
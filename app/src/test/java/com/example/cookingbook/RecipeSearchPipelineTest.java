@@ -0,0 +1,78 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RecipeSearchPipelineTest {
+
+    @Test
+    public void submit_debouncesToTheLatestQuery() throws Exception {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        RecipeSearchPipeline pipeline = new RecipeSearchPipeline(Runnable::run, (query, results, latencyMs) -> {
+            delivered.add(query.getText());
+            done.countDown();
+        });
+
+        for (String text : new String[]{"c", "ch", "chi", "chic"}) {
+            pipeline.submit(new RecipeQuery(text, null, 0), () -> {
+                runs.incrementAndGet();
+                return Collections.emptyList();
+            }, 200);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(Collections.singletonList("chic"), delivered);
+        assertEquals(1, runs.get());
+
+        RecipeSearchPipeline.Metrics metrics = pipeline.getMetrics();
+        assertEquals(4, metrics.issued);
+        assertEquals(3, metrics.cancelled);
+        assertEquals(1, metrics.published);
+        assertTrue(metrics.maxLatencyMs >= 200);
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void submit_interruptsARunningQuery() throws Exception {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        RecipeSearchPipeline pipeline = new RecipeSearchPipeline(Runnable::run, (query, results, latencyMs) -> {
+            delivered.add(query.getText());
+            done.countDown();
+        });
+
+        ArrayList<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            recipes.add(new Recipe("Recipe " + i, "", null, RecipeCategory.OTHER));
+        }
+        RecipeQuery slow = new RecipeQuery("recipe", null, 0);
+        pipeline.submit(slow, () -> {
+            started.countDown();
+            while (true) {
+                List<Recipe> results = slow.run(recipes, null, null);
+                if (results == null) return null; // interrupted
+            }
+        }, 0);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        pipeline.submit(new RecipeQuery("soup", null, 0), Collections::emptyList, 0);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("soup"), delivered);
+        assertEquals(1, pipeline.getMetrics().cancelled);
+        pipeline.shutdown();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.cookingbook;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SaveSchedulerTest {
+
+    @Test
+    public void markDirty_coalescesWithinWindow() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        SaveScheduler scheduler = new SaveScheduler(flushes::incrementAndGet, 200);
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.markDirty();
+        }
+        Thread.sleep(400);
+
+        assertEquals(1, flushes.get());
+    }
+
+    @Test
+    public void flush_writesWithoutWaitingForWindow() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        SaveScheduler scheduler = new SaveScheduler(flushes::incrementAndGet, TimeUnit.HOURS.toMillis(1));
+
+        scheduler.markDirty();
+        scheduler.markDirty();
+        assertTrue(scheduler.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(1, flushes.get());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.cookingbook;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void internStrings_sharesEqualIngredientsAcrossRecipes() {
+        Gson gson = new Gson();
+        Recipe original = new Recipe("Pancakes", "", null, RecipeCategory.DESSERTS,
+                new ArrayList<>(Arrays.asList("salt", "2 cups flour")), false, false, false, false);
+        String json = gson.toJson(original);
+        Recipe first = gson.fromJson(json, Recipe.class);
+        Recipe second = gson.fromJson(json, Recipe.class);
+        assertNotSame(first.getIngredients().get(0), second.getIngredients().get(0));
+
+        StringDictionary dictionary = new StringDictionary();
+        first.internStrings(dictionary);
+        second.internStrings(dictionary);
+
+        assertSame(first.getIngredients().get(0), second.getIngredients().get(0));
+        assertSame(first.getIngredients().get(1), second.getIngredients().get(1));
+        assertEquals(Arrays.asList("salt", "2 cups flour"), second.getIngredients());
+        assertEquals(2, dictionary.size());
+        assertEquals(2, dictionary.getDuplicatesRemoved());
+    }
+}
@@ -0,0 +1,49 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The benchmarks run on the desktop JVM against the app's plain Java classes, compiled straight
+// from the app's source tree. Classes that touch the Android framework are left out.
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/cookingbook/FuzzyWordIndex.java",
+                "com/example/cookingbook/MappedRecipeCatalog.java",
+                "com/example/cookingbook/PostingList.java",
+                "com/example/cookingbook/Recipe.java",
+                "com/example/cookingbook/RecipeBinaryReader.java",
+                "com/example/cookingbook/RecipeBinaryWriter.java",
+                "com/example/cookingbook/RecipeCategory.java",
+                "com/example/cookingbook/RecipeFacetIndex.java",
+                "com/example/cookingbook/RecipeFilterEngine.java",
+                "com/example/cookingbook/RecipeJournal.java",
+                "com/example/cookingbook/RecipeQuery.java",
+                "com/example/cookingbook/RecipeRanker.java",
+                "com/example/cookingbook/RecipeSearchIndex.java",
+                "com/example/cookingbook/SearchNormalizer.java",
+                "com/example/cookingbook/StringDictionary.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.gson)
+}
+
+// ./gradlew :benchmark:jmh, results go to build/results/jmh/results.json.
+// -Pjmh.includes=FilterBenchmark runs a single class.
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
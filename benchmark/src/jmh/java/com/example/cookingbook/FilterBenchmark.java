@@ -0,0 +1,117 @@
+package com.example.cookingbook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The queries RecipeAdapter.applyFilters runs, against the indexes RecipeManager keeps and
+// against a plain scan of the list, which is what runs when no index is available.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private ArrayList<Recipe> recipes;
+    private RecipeSearchIndex searchIndex;
+    private RecipeFacetIndex facetIndex;
+
+    private final RecipeQuery search = new RecipeQuery("garlic chicken", null, 0);
+    private final RecipeQuery firstLetter = new RecipeQuery("c", null, 0);
+    private final RecipeQuery[] keystrokes = {
+            new RecipeQuery("c", null, 0), new RecipeQuery("ch", null, 0), new RecipeQuery("chi", null, 0),
+            new RecipeQuery("chic", null, 0), new RecipeQuery("chick", null, 0)};
+    private final RecipeQuery typo = new RecipeQuery("chiken", null, 0);
+    private final RecipeQuery category = new RecipeQuery("", RecipeCategory.MAIN_COURSE, 0);
+    private final RecipeQuery dietary = new RecipeQuery("", null, Recipe.VEGETARIAN | Recipe.GLUTEN_FREE);
+    private final RecipeQuery combined = new RecipeQuery("creamy", RecipeCategory.MAIN_COURSE, Recipe.VEGETARIAN);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recipes = RecipeGenerator.generate(size, 42);
+        searchIndex = new RecipeSearchIndex();
+        facetIndex = new RecipeFacetIndex();
+        for (Recipe recipe : recipes) {
+            searchIndex.add(recipe);
+            facetIndex.add(recipe);
+        }
+    }
+
+    @Benchmark
+    public List<Recipe> searchIndexed() {
+        return search.run(recipes, searchIndex, facetIndex);
+    }
+
+    @Benchmark
+    public List<Recipe> searchScan() {
+        return search.run(recipes, null, null);
+    }
+
+    @Benchmark
+    public List<Recipe> firstLetterIndexed() {
+        return firstLetter.run(recipes, searchIndex, facetIndex);
+    }
+
+    @Benchmark
+    public List<Recipe> firstLetterScan() {
+        return firstLetter.run(recipes, null, null);
+    }
+
+    // Typing "chick" a letter at a time, each query run as the previous one's replacement
+    @Benchmark
+    public int typingIndexed() {
+        int found = 0;
+        for (RecipeQuery query : keystrokes) {
+            found += query.run(recipes, searchIndex, facetIndex).size();
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<Recipe> searchWithTypo() {
+        return typo.run(recipes, searchIndex, facetIndex);
+    }
+
+    @Benchmark
+    public List<Recipe> categoryIndexed() {
+        return category.run(recipes, searchIndex, facetIndex);
+    }
+
+    @Benchmark
+    public List<Recipe> categoryScan() {
+        return category.run(recipes, null, null);
+    }
+
+    @Benchmark
+    public List<Recipe> dietaryIndexed() {
+        return dietary.run(recipes, searchIndex, facetIndex);
+    }
+
+    @Benchmark
+    public List<Recipe> dietaryScan() {
+        return dietary.run(recipes, null, null);
+    }
+
+    @Benchmark
+    public List<Recipe> combinedIndexed() {
+        return combined.run(recipes, searchIndex, facetIndex);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.cookingbook;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Saving and loading the whole collection in both formats RecipeManager reads: the JSON list of
+// the old preferences store, which is also the journal's record format, and the binary snapshot.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final Type RECIPE_LIST = new TypeToken<ArrayList<Recipe>>() {}.getType();
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private final Gson gson = new Gson();
+    private final RecipeJournal journal = new RecipeJournal(null);
+    private ArrayList<Recipe> recipes;
+    private String json;
+    private byte[] snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        recipes = RecipeGenerator.generate(size, 42);
+        json = gson.toJson(recipes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RecipeBinaryWriter(out).write(recipes);
+        snapshot = out.toByteArray();
+    }
+
+    @Benchmark
+    public String jsonSerialize() {
+        return gson.toJson(recipes);
+    }
+
+    @Benchmark
+    public List<Recipe> jsonDeserialize() {
+        return gson.fromJson(json, RECIPE_LIST);
+    }
+
+    // One journal record per recipe, what saving every recipe once costs
+    @Benchmark
+    public int journalEncode() {
+        int length = 0;
+        for (Recipe recipe : recipes) {
+            length += journal.encode(new RecipeJournal.Entry(RecipeJournal.OP_PUT, recipe.getId(), recipe)).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(snapshot.length);
+        new RecipeBinaryWriter(out).write(recipes);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public List<Recipe> binaryDeserialize() throws IOException {
+        return new RecipeBinaryReader(new ByteArrayInputStream(snapshot)).readAll();
+    }
+}
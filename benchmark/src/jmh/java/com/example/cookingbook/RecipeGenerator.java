@@ -0,0 +1,61 @@
+package com.example.cookingbook;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+// Synthetic recipe collections for the benchmarks. Seeded, so every run and every fork measures
+// the same data. Words are drawn with a skew towards the front of each list, so common
+// ingredients repeat the way they do in a real collection.
+public class RecipeGenerator {
+
+    static final String[] DISHES = {"chicken", "pasta", "soup", "salad", "curry", "stew", "cake",
+            "bread", "pie", "risotto", "tacos", "omelette", "pancakes", "smoothie", "lasagna",
+            "burger", "noodles", "casserole", "muffins", "chili", "dumplings", "paella", "quiche"};
+    static final String[] ADJECTIVES = {"spicy", "creamy", "quick", "roasted", "grilled", "classic",
+            "lemon", "garlic", "honey", "smoky", "fresh", "crispy", "rustic", "sweet", "herbed"};
+    static final String[] INGREDIENTS = {"salt", "olive oil", "garlic", "onion", "butter", "flour",
+            "eggs", "milk", "sugar", "black pepper", "tomatoes", "chicken breast", "rice", "lemon",
+            "parmesan", "basil", "carrots", "potatoes", "ginger", "soy sauce", "cumin", "paprika",
+            "beef", "spinach", "mushrooms", "cream", "honey", "cinnamon", "yogurt", "chickpeas",
+            "coconut milk", "thyme", "rosemary", "bell pepper", "zucchini", "tofu", "shrimp", "feta"};
+    static final String[] UNITS = {"", "1 cup ", "2 cups ", "1 tbsp ", "2 tsp ", "200 g ", "3 "};
+    static final String[] SENTENCES = {"A weeknight favourite that comes together in one pan.",
+            "Simmer gently until everything is tender.", "Serve warm with crusty bread.",
+            "Keeps well in the fridge for three days.", "Great for feeding a crowd.",
+            "Toast the spices first for a deeper flavour.", "Finish with a squeeze of lemon."};
+
+    public static ArrayList<Recipe> generate(int count, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = pick(random, ADJECTIVES) + " " + pick(random, ADJECTIVES) + " " + pick(random, DISHES);
+
+            StringBuilder description = new StringBuilder();
+            for (int s = 0, sentences = 1 + random.nextInt(4); s < sentences; s++) {
+                if (s > 0) description.append(' ');
+                description.append(pick(random, SENTENCES));
+            }
+
+            ArrayList<String> ingredients = new ArrayList<>();
+            for (int n = 0, size = 3 + random.nextInt(10); n < size; n++) {
+                ingredients.add(UNITS[random.nextInt(UNITS.length)] + pick(random, INGREDIENTS));
+            }
+
+            boolean meat = random.nextInt(3) == 0;
+            boolean vegan = !meat && random.nextInt(4) == 0;
+            Recipe recipe = new Recipe(title, description.toString(),
+                    random.nextInt(3) == 0 ? "content://media/external/images/media/" + i : null,
+                    RecipeCategory.values()[random.nextInt(RecipeCategory.values().length)], ingredients,
+                    vegan || !meat && random.nextBoolean(), vegan, random.nextInt(5) == 0, meat);
+            recipe.setId(i + 1);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    // Skewed towards the start of the list
+    private static String pick(Random random, String[] words) {
+        double r = random.nextDouble();
+        return words[(int) (r * r * words.length)];
+    }
+}
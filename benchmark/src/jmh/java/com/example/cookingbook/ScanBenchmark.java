@@ -0,0 +1,69 @@
+package com.example.cookingbook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// RecipeFilterEngine over pool sizes and chunk sizes, for picking DEFAULT_CHUNK_SIZE. The
+// parallelism = 1 rows are the plain sequential scan.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"1", "2", "4"})
+    int parallelism;
+
+    @Param({"1024", "8192", "32768"})
+    int chunkSize;
+
+    private ArrayList<Recipe> recipes;
+    private ForkJoinPool pool;
+    private RecipeFilterEngine engine;
+
+    private final RecipeQuery search = new RecipeQuery("garlic chicken", null, 0);
+    private final RecipeQuery category = new RecipeQuery("", RecipeCategory.MAIN_COURSE, 0);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recipes = RecipeGenerator.generate(size, 42);
+        pool = new ForkJoinPool(parallelism);
+        engine = new RecipeFilterEngine(pool, chunkSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Recipe> search() {
+        return engine.filter(recipes, search::matches);
+    }
+
+    @Benchmark
+    public List<Recipe> category() {
+        return engine.filter(recipes, category::matches);
+    }
+}
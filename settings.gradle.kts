@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Cooking Book"
 include(":app")
+include(":benchmark")